@@ -0,0 +1,244 @@
+package com.autoapi.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of API keys with separate quotas.
+ * Each request uses the key with the most budget left in the current quota window
+ * (or the least used one if no quota is set). A key answered with 429 is taken out
+ * of rotation until its Retry-After passes; a key rejected with 401/403 is taken out
+ * for a longer cooldown. If every key is out, the one that comes back first is used,
+ * so the API rather than the client decides whether the request is accepted.
+ */
+public class ApiKeyPool {
+
+    /**
+     * Usage of a single key.
+     */
+    public static final class KeyUsage {
+
+        private final String key;
+        private final long requests;
+        private final long rateLimited;
+        private final long authFailures;
+        private final int remaining;
+        private final boolean available;
+
+        KeyUsage(String key, long requests, long rateLimited, long authFailures, int remaining, boolean available) {
+            this.key = key;
+            this.requests = requests;
+            this.rateLimited = rateLimited;
+            this.authFailures = authFailures;
+            this.remaining = remaining;
+            this.available = available;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /** Requests sent with this key since the pool was created. */
+        public long getRequests() {
+            return requests;
+        }
+
+        /** Number of 429 responses received for this key. */
+        public long getRateLimited() {
+            return rateLimited;
+        }
+
+        /** Number of 401/403 responses received for this key. */
+        public long getAuthFailures() {
+            return authFailures;
+        }
+
+        /** Requests left in the current quota window, or -1 if no quota is set. */
+        public int getRemaining() {
+            return remaining;
+        }
+
+        /** Whether the key is currently in rotation. */
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public String toString() {
+            String masked = key.length() > 8 ? key.substring(0, 4) + "…" + key.substring(key.length() - 4) : "…";
+            return String.format("%s: %d requests, %d rate limited, %d auth failures, %d remaining%s",
+                    masked, requests, rateLimited, authFailures, remaining, available ? "" : " (out of rotation)");
+        }
+    }
+
+    private static final class Key {
+        final String value;
+        long requests;
+        long rateLimited;
+        long authFailures;
+        int usedInWindow;
+        boolean coolingDown;
+        long cooldownUntil;
+
+        Key(String value) {
+            this.value = value;
+        }
+
+        boolean available(long now) {
+            return !coolingDown || now - cooldownUntil >= 0;
+        }
+
+        void coolDown(Duration duration) {
+            coolingDown = true;
+            cooldownUntil = System.nanoTime() + duration.toNanos();
+        }
+    }
+
+    private final List<Key> keys = new ArrayList<>();
+    private final int quotaPerWindow;
+    private final long windowNanos;
+    private long windowStart = System.nanoTime();
+    private Duration rateLimitCooldown = Duration.ofSeconds(60);
+    private Duration authCooldown = Duration.ofMinutes(10);
+    private int next;
+
+    /**
+     * Creates a pool without quota tracking; requests are spread evenly.
+     *
+     * @param keys API keys from auto-api.com
+     */
+    public ApiKeyPool(List<String> keys) {
+        this(keys, 0, Duration.ofMinutes(1));
+    }
+
+    /**
+     * Creates a pool that tracks each key's remaining budget.
+     *
+     * @param keys           API keys from auto-api.com
+     * @param quotaPerWindow requests allowed per key per window
+     * @param window         quota window length
+     */
+    public ApiKeyPool(List<String> keys, int quotaPerWindow, Duration window) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one API key is required");
+        }
+        for (String key : keys) {
+            this.keys.add(new Key(key));
+        }
+        this.quotaPerWindow = quotaPerWindow;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * How long a key stays out of rotation after a 429 without Retry-After (default: 60 seconds),
+     * and after a 401/403 (default: 10 minutes).
+     */
+    public synchronized ApiKeyPool cooldowns(Duration rateLimited, Duration authFailed) {
+        this.rateLimitCooldown = rateLimited;
+        this.authCooldown = authFailed;
+        return this;
+    }
+
+    /**
+     * Picks the key for the next request and counts the request against it.
+     */
+    synchronized String acquire() {
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos) {
+            for (Key key : keys) {
+                key.usedInWindow = 0;
+            }
+            windowStart = now;
+        }
+
+        Key chosen = null;
+        // Start after the last pick so ties rotate through the keys
+        for (int i = 0; i < keys.size(); i++) {
+            Key key = keys.get((next + i) % keys.size());
+            if (!key.available(now) || (quotaPerWindow > 0 && key.usedInWindow >= quotaPerWindow)) {
+                continue;
+            }
+            if (chosen == null || key.usedInWindow < chosen.usedInWindow) {
+                chosen = key;
+            }
+        }
+        if (chosen == null) {
+            // Every key is cooling down or out of budget: use the one that recovers first
+            chosen = keys.get(0);
+            for (Key key : keys) {
+                if (recoversBefore(key, chosen, now)) {
+                    chosen = key;
+                }
+            }
+        }
+
+        next = (keys.indexOf(chosen) + 1) % keys.size();
+        chosen.requests++;
+        chosen.usedInWindow++;
+        return chosen.value;
+    }
+
+    /**
+     * Takes a key out of rotation after a 429 response.
+     *
+     * @param key        key that was rate limited
+     * @param retryAfter delay from the Retry-After header, or null to use the default cooldown
+     */
+    synchronized void rateLimited(String key, Duration retryAfter) {
+        Key entry = find(key);
+        if (entry != null) {
+            entry.rateLimited++;
+            entry.coolDown(retryAfter != null ? retryAfter : rateLimitCooldown);
+        }
+    }
+
+    /**
+     * Takes a key out of rotation after a 401/403 response.
+     */
+    synchronized void authFailed(String key) {
+        Key entry = find(key);
+        if (entry != null) {
+            entry.authFailures++;
+            entry.coolDown(authCooldown);
+        }
+    }
+
+    /**
+     * Returns a snapshot of per-key usage, in the order the keys were given.
+     */
+    public synchronized List<KeyUsage> getUsage() {
+        long now = System.nanoTime();
+        boolean windowOver = now - windowStart >= windowNanos;
+        List<KeyUsage> usage = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            int remaining = quotaPerWindow > 0
+                    ? Math.max(0, quotaPerWindow - (windowOver ? 0 : key.usedInWindow))
+                    : -1;
+            usage.add(new KeyUsage(key.value, key.requests, key.rateLimited, key.authFailures,
+                    remaining, key.available(now)));
+        }
+        return usage;
+    }
+
+    private static boolean recoversBefore(Key a, Key b, long now) {
+        boolean aReady = a.available(now);
+        boolean bReady = b.available(now);
+        if (aReady != bReady) {
+            return aReady;
+        }
+        if (!aReady && a.cooldownUntil != b.cooldownUntil) {
+            return a.cooldownUntil - b.cooldownUntil < 0;
+        }
+        return a.usedInWindow < b.usedInWindow;
+    }
+
+    private Key find(String value) {
+        for (Key key : keys) {
+            if (key.value.equals(value)) {
+                return key;
+            }
+        }
+        return null;
+    }
+}
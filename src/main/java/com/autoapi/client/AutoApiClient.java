@@ -2,14 +2,27 @@ package com.autoapi.client;
 
 import com.autoapi.client.exception.ApiException;
 import com.autoapi.client.exception.AuthException;
+import com.autoapi.client.exception.CircuitOpenException;
+import com.autoapi.client.exception.OverloadedException;
 import com.autoapi.client.model.ChangesResponse;
+import com.autoapi.client.model.Meta;
+import com.autoapi.client.model.ModelTypeAdapterFactory;
+import com.autoapi.client.model.OfferItem;
 import com.autoapi.client.model.OffersParams;
 import com.autoapi.client.model.OffersResponse;
+import com.autoapi.client.model.StringPool;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -17,8 +30,29 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -26,11 +60,26 @@ import java.util.stream.Collectors;
  */
 public class AutoApiClient {
 
-    private final String apiKey;
-    private final String baseUrl;
+    private static final String DEFAULT_BASE_URL = "https://api1.auto-api.com";
+    private static final String DEFAULT_API_VERSION = "v2";
+    private static final int DEFAULT_PARALLELISM = 8;
+    /** Lookup threads shared by concurrent getOffersByIds calls; idle ones exit after a minute. */
+    private static final int MAX_LOOKUP_THREADS = 64;
+
+    private final ApiKeyPool apiKeys;
+    private final EndpointRouter router;
     private final String apiVersion;
-    private final HttpClient httpClient;
-    private final Gson gson;
+    private final Duration timeout;
+    private final StringPool stringPool;
+    private final int breakerThreshold;
+    private final Duration breakerOpenDuration;
+    private final int maxInFlightPerSource;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> inFlight = new ConcurrentHashMap<>();
+    /** Created on first use, so short-lived jobs that never send a request skip the cost. */
+    private volatile HttpClient httpClient;
+    private volatile Gson gson;
+    private volatile ExecutorService lookups;
 
     /**
      * Creates a new client with the given API key.
@@ -38,7 +87,7 @@ public class AutoApiClient {
      * @param apiKey API key from auto-api.com
      */
     public AutoApiClient(String apiKey) {
-        this(apiKey, "https://api1.auto-api.com", "v2");
+        this(apiKey, DEFAULT_BASE_URL, DEFAULT_API_VERSION);
     }
 
     /**
@@ -49,13 +98,127 @@ public class AutoApiClient {
      * @param apiVersion API version (default: "v2")
      */
     public AutoApiClient(String apiKey, String baseUrl, String apiVersion) {
-        this.apiKey = apiKey;
-        this.baseUrl = baseUrl.replaceAll("/+$", "");
-        this.apiVersion = apiVersion;
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
-        this.gson = new Gson();
+        this(builder(apiKey).baseUrl(baseUrl).apiVersion(apiVersion));
+    }
+
+    private AutoApiClient(Builder builder) {
+        this.apiKeys = builder.apiKeys;
+        this.router = new EndpointRouter(builder.baseUrls, builder.failureThreshold, builder.ejectDuration);
+        this.apiVersion = builder.apiVersion;
+        this.timeout = builder.timeout;
+        this.stringPool = builder.stringPool;
+        this.breakerThreshold = builder.breakerThreshold;
+        this.breakerOpenDuration = builder.breakerOpenDuration;
+        this.maxInFlightPerSource = builder.maxInFlightPerSource;
+    }
+
+    /**
+     * Starts building a client with optional settings.
+     * Uses fluent builder pattern — chain setters, then call {@link Builder#build()}.
+     *
+     * @param apiKey API key from auto-api.com
+     * @return builder with default settings
+     */
+    public static Builder builder(String apiKey) {
+        return new Builder(new ApiKeyPool(List.of(apiKey)));
+    }
+
+    /**
+     * Starts building a client that spreads requests across several API keys.
+     *
+     * @param apiKeys pool of API keys from auto-api.com
+     * @return builder with default settings
+     */
+    public static Builder builder(ApiKeyPool apiKeys) {
+        return new Builder(apiKeys);
+    }
+
+    /**
+     * Builder for {@link AutoApiClient}.
+     */
+    public static class Builder {
+
+        private final ApiKeyPool apiKeys;
+        private List<String> baseUrls = List.of(DEFAULT_BASE_URL);
+        private String apiVersion = DEFAULT_API_VERSION;
+        private Duration timeout = Duration.ofSeconds(30);
+        private int failureThreshold = 3;
+        private Duration ejectDuration = Duration.ofSeconds(10);
+        private int breakerThreshold;
+        private Duration breakerOpenDuration;
+        private int maxInFlightPerSource;
+        private StringPool stringPool;
+
+        private Builder(ApiKeyPool apiKeys) {
+            this.apiKeys = apiKeys;
+        }
+
+        /** Base URL override. */
+        public Builder baseUrl(String baseUrl) { this.baseUrls = List.of(baseUrl); return this; }
+
+        /**
+         * Equivalent base URLs to route between. Each request goes to the faster of two
+         * randomly picked endpoints, and fails over to another one on network errors.
+         */
+        public Builder baseUrls(String... baseUrls) { this.baseUrls = Arrays.asList(baseUrls); return this; }
+
+        /**
+         * Ejects an endpoint after {@code failureThreshold} consecutive network errors or 5xx responses,
+         * and sends it a single probe request after {@code ejectDuration} (default: 3 failures, 10 seconds).
+         */
+        public Builder endpointEjection(int failureThreshold, Duration ejectDuration) {
+            this.failureThreshold = failureThreshold;
+            this.ejectDuration = ejectDuration;
+            return this;
+        }
+
+        /**
+         * Enables a circuit breaker per source and endpoint (e.g. "encar/offers").
+         * It opens after {@code failureThreshold} consecutive network errors, 429 or 5xx responses,
+         * fails calls fast with {@link CircuitOpenException} for {@code openDuration},
+         * then lets a single probe call through before closing again.
+         */
+        public Builder circuitBreaker(int failureThreshold, Duration openDuration) {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("failureThreshold must be positive");
+            }
+            this.breakerThreshold = failureThreshold;
+            this.breakerOpenDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * Limits concurrent requests per source; calls beyond the limit fail fast
+         * with {@link OverloadedException} instead of queueing.
+         */
+        public Builder maxInFlightPerSource(int maxInFlightPerSource) {
+            if (maxInFlightPerSource < 1) {
+                throw new IllegalArgumentException("maxInFlightPerSource must be positive");
+            }
+            this.maxInFlightPerSource = maxInFlightPerSource;
+            return this;
+        }
+
+        /** Connect and request timeout (default: 30 seconds). */
+        public Builder timeout(Duration timeout) { this.timeout = timeout; return this; }
+
+        /** API version (default: "v2"). */
+        public Builder apiVersion(String apiVersion) { this.apiVersion = apiVersion; return this; }
+
+        /** Interns repeated categorical values of parsed offers through the given pool. */
+        public Builder stringPool(StringPool stringPool) { this.stringPool = stringPool; return this; }
+
+        /** Creates the client. */
+        public AutoApiClient build() {
+            return new AutoApiClient(this);
+        }
+    }
+
+    /**
+     * Returns per-key usage of the client's API keys.
+     */
+    public List<ApiKeyPool.KeyUsage> getKeyUsage() {
+        return apiKeys.getUsage();
     }
 
     /**
@@ -66,8 +229,22 @@ public class AutoApiClient {
      */
     @SuppressWarnings("unchecked")
     public Map<String, Object> getFilters(String source) {
-        String body = get(String.format("api/%s/%s/filters", apiVersion, source), null);
-        return gson.fromJson(body, Map.class);
+        String body = get(source, "filters", null);
+        return gson().fromJson(body, Map.class);
+    }
+
+    /**
+     * Seeds the client's string pool with the filter values of a source
+     * (brands, models, body types, etc.), so parsed offers share those instances.
+     *
+     * @param source source platform name
+     * @throws IllegalStateException if the client was built without a string pool
+     */
+    public void seedStringPool(String source) {
+        if (stringPool == null) {
+            throw new IllegalStateException("Client was built without a string pool");
+        }
+        stringPool.seed(getFilters(source));
     }
 
     /**
@@ -79,8 +256,45 @@ public class AutoApiClient {
      */
     public OffersResponse getOffers(String source, OffersParams params) {
         Map<String, String> query = params != null ? params.toQueryParams() : new LinkedHashMap<>();
-        String body = get(String.format("api/%s/%s/offers", apiVersion, source), query);
-        return gson.fromJson(body, OffersResponse.class);
+        String body = get(source, "offers", query);
+        return gson().fromJson(body, OffersResponse.class);
+    }
+
+    /**
+     * Fetches a page of offers and hands each item to {@code consumer} as it is parsed from the
+     * response body, so the page is never held in memory as a whole.
+     *
+     * @param source   source platform name
+     * @param params   query parameters (page, brand, model, etc.)
+     * @param consumer receives the page's offers in order
+     * @return pagination meta of the page, or null if the response has none
+     */
+    public Meta streamOffers(String source, OffersParams params, Consumer<OfferItem> consumer) {
+        Map<String, String> query = params != null ? params.toQueryParams() : new LinkedHashMap<>();
+        InputStream body = get(source, "offers", query, HttpResponse.BodyHandlers.ofInputStream(), AutoApiClient::readFully);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            TypeAdapter<OfferItem> itemAdapter = gson().getAdapter(OfferItem.class);
+            Meta meta = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("result") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        consumer.accept(itemAdapter.read(reader));
+                    }
+                    reader.endArray();
+                } else if (name.equals("meta") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    meta = gson().getAdapter(Meta.class).read(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return meta;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -93,8 +307,80 @@ public class AutoApiClient {
     public OffersResponse getOffer(String source, String innerId) {
         Map<String, String> query = new LinkedHashMap<>();
         query.put("inner_id", innerId);
-        String body = get(String.format("api/%s/%s/offer", apiVersion, source), query);
-        return gson.fromJson(body, OffersResponse.class);
+        String body = get(source, "offer", query);
+        return gson().fromJson(body, OffersResponse.class);
+    }
+
+    /**
+     * Returns several offers by inner_id, fetching up to 8 of them concurrently.
+     *
+     * @param source   source platform name
+     * @param innerIds offer inner IDs (duplicates are fetched once)
+     * @return responses keyed by inner_id, in the iteration order of innerIds
+     */
+    public Map<String, OffersResponse> getOffersByIds(String source, Collection<String> innerIds) {
+        return getOffersByIds(source, innerIds, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Returns several offers by inner_id with bounded parallelism, on threads the client keeps
+     * for lookups (up to 64, shared by concurrent calls; beyond that the caller's thread helps).
+     * The first lookup to fail is rethrown after the remaining lookups are cancelled.
+     *
+     * @param source      source platform name
+     * @param innerIds    offer inner IDs (duplicates are fetched once)
+     * @param parallelism maximum number of concurrent requests
+     * @return responses keyed by inner_id, in the iteration order of innerIds
+     */
+    public Map<String, OffersResponse> getOffersByIds(String source, Collection<String> innerIds, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(innerIds));
+        Map<String, OffersResponse> results = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return results;
+        }
+
+        // Each worker takes the next unclaimed ID until none are left or a lookup failed
+        OffersResponse[] responses = new OffersResponse[ids.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        CompletionService<Void> workers = new ExecutorCompletionService<>(lookups());
+        List<Future<Void>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < Math.min(parallelism, ids.size()); w++) {
+                futures.add(workers.submit(() -> {
+                    for (int i; !failed.get() && (i = next.getAndIncrement()) < responses.length; ) {
+                        responses[i] = getOffer(source, ids.get(i));
+                    }
+                    return null;
+                }));
+            }
+            for (int done = 0; done < futures.size(); done++) {
+                Future<Void> worker;
+                try {
+                    worker = workers.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiException(0, "Request interrupted", "");
+                }
+                try {
+                    await(worker);
+                } catch (RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }
+        } finally {
+            for (Future<Void> future : futures) {
+                future.cancel(true);
+            }
+        }
+        for (int i = 0; i < responses.length; i++) {
+            results.put(ids.get(i), responses[i]);
+        }
+        return results;
     }
 
     /**
@@ -107,8 +393,8 @@ public class AutoApiClient {
     public int getChangeId(String source, String date) {
         Map<String, String> query = new LinkedHashMap<>();
         query.put("date", date);
-        String body = get(String.format("api/%s/%s/change_id", apiVersion, source), query);
-        JsonObject obj = gson.fromJson(body, JsonObject.class);
+        String body = get(source, "change_id", query);
+        JsonObject obj = gson().fromJson(body, JsonObject.class);
         return obj.get("change_id").getAsInt();
     }
 
@@ -122,8 +408,8 @@ public class AutoApiClient {
     public ChangesResponse getChanges(String source, int changeId) {
         Map<String, String> query = new LinkedHashMap<>();
         query.put("change_id", String.valueOf(changeId));
-        String body = get(String.format("api/%s/%s/changes", apiVersion, source), query);
-        return gson.fromJson(body, ChangesResponse.class);
+        String body = get(source, "changes", query);
+        return gson().fromJson(body, ChangesResponse.class);
     }
 
     /**
@@ -137,71 +423,269 @@ public class AutoApiClient {
     public Map<String, Object> getOfferByUrl(String url) {
         JsonObject payload = new JsonObject();
         payload.addProperty("url", url);
-        String body = post("api/v1/offer/info", payload);
-        return gson.fromJson(body, Map.class);
+        String body = post("offer/info", payload);
+        return gson().fromJson(body, Map.class);
     }
 
-    private String get(String endpoint, Map<String, String> query) {
+    private String get(String source, String name, Map<String, String> query) {
+        return get(source, name, query, HttpResponse.BodyHandlers.ofString(), body -> body);
+    }
+
+    private <T> T get(String source, String name, Map<String, String> query,
+                      HttpResponse.BodyHandler<T> bodyHandler, Function<T, String> errorBody) {
         if (query == null) {
             query = new LinkedHashMap<>();
         }
-        query.put("api_key", apiKey);
 
+        String endpoint = String.format("api/%s/%s/%s", apiVersion, source, name);
         String queryString = query.entrySet().stream()
                 .map(e -> encode(e.getKey()) + "=" + encode(e.getValue()))
                 .collect(Collectors.joining("&"));
 
-        String url = String.format("%s/%s?%s", baseUrl, endpoint, queryString);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
+        return execute(source, name, (baseUrl, apiKey) -> HttpRequest.newBuilder()
+                .uri(URI.create(String.format("%s/%s?%s%sapi_key=%s", baseUrl, endpoint, queryString,
+                        queryString.isEmpty() ? "" : "&", encode(apiKey))))
+                .timeout(timeout)
                 .GET()
-                .build();
-
-        return execute(request);
+                .build(), bodyHandler, errorBody);
     }
 
-    private String post(String endpoint, JsonElement data) {
-        String url = String.format("%s/%s", baseUrl, endpoint);
+    private String post(String name, JsonElement data) {
+        String endpoint = "api/v1/" + name;
+        String json = gson().toJson(data);
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
+        return execute(null, name, (baseUrl, apiKey) -> HttpRequest.newBuilder()
+                .uri(URI.create(String.format("%s/%s", baseUrl, endpoint)))
+                .timeout(timeout)
                 .header("Content-Type", "application/json")
                 .header("x-api-key", apiKey)
-                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(data)))
-                .build();
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build(), HttpResponse.BodyHandlers.ofString(), body -> body);
+    }
+
+    /**
+     * Sends a request through the in-flight limit and circuit breaker of its source.
+     *
+     * @param source  source platform name, or null for endpoints not tied to a source
+     * @param name    endpoint name, e.g. "offers"
+     * @param request     builds the request for a base URL and API key
+     * @param bodyHandler how to receive the response body
+     * @param errorBody   turns the body of an error response into text for the exception
+     */
+    private <T> T execute(String source, String name, BiFunction<String, String, HttpRequest> request,
+                          HttpResponse.BodyHandler<T> bodyHandler, Function<T, String> errorBody) {
+        String key = source != null ? source + "/" + name : name;
+
+        Semaphore permits = null;
+        if (maxInFlightPerSource > 0) {
+            permits = inFlight.computeIfAbsent(source != null ? source : name,
+                    k -> new Semaphore(maxInFlightPerSource));
+            if (!permits.tryAcquire()) {
+                throw new OverloadedException(0, "Too many requests in flight for " + key, "");
+            }
+        }
+
+        try {
+            CircuitBreaker breaker = null;
+            if (breakerThreshold > 0) {
+                breaker = breakers.computeIfAbsent(key, k -> new CircuitBreaker(breakerThreshold, breakerOpenDuration));
+                if (!breaker.tryAcquire()) {
+                    throw new CircuitOpenException(0, "Circuit open for " + key, "");
+                }
+            }
+
+            String apiKey = apiKeys.acquire();
+            HttpResponse<T> response;
+            try {
+                response = route(baseUrl -> request.apply(baseUrl, apiKey), bodyHandler);
+            } catch (IOException e) {
+                if (breaker != null) {
+                    breaker.failure();
+                }
+                throw new ApiException(0, "Network error: " + e.getMessage(), "");
+            } catch (RuntimeException e) {
+                if (breaker != null) {
+                    breaker.release();
+                }
+                throw e;
+            }
+
+            T body = response.body();
+            int statusCode = response.statusCode();
+
+            if (breaker != null) {
+                if (statusCode == 429 || statusCode >= 500) {
+                    breaker.failure();
+                } else {
+                    breaker.success();
+                }
+            }
+
+            if (statusCode == 429) {
+                apiKeys.rateLimited(apiKey, retryAfter(response));
+            } else if (statusCode == 401 || statusCode == 403) {
+                apiKeys.authFailed(apiKey);
+            }
+
+            if (statusCode < 200 || statusCode >= 300) {
+                handleError(statusCode, errorBody.apply(body));
+            }
+
+            return body;
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private <T> HttpResponse<T> route(Function<String, HttpRequest> request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException {
+        EndpointRouter.Endpoint due = router.probeDue();
+        if (due != null) {
+            probe(due);
+        }
+        EndpointRouter.Endpoint endpoint = router.select(null);
+        HttpResponse<T> response;
+        try {
+            response = send(endpoint, request, bodyHandler);
+        } catch (IOException e) {
+            // Fail over once to another endpoint, if there is one
+            EndpointRouter.Endpoint fallback = router.select(endpoint);
+            if (fallback == null) {
+                throw e;
+            }
+            return send(fallback, request, bodyHandler);
+        }
+        if (response.statusCode() >= 500 && "GET".equals(response.request().method())) {
+            // A server error is the endpoint's fault too; GETs are safe to repeat elsewhere
+            EndpointRouter.Endpoint fallback = router.select(endpoint);
+            if (fallback != null) {
+                discard(response.body());
+                return send(fallback, request, bodyHandler);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Checks an ejected endpoint in the background with a HEAD request to its base URL;
+     * any answer other than a server error brings it back.
+     */
+    private void probe(EndpointRouter.Endpoint endpoint) {
+        HttpRequest ping;
+        try {
+            ping = HttpRequest.newBuilder()
+                    .uri(URI.create(endpoint.baseUrl + "/"))
+                    .timeout(timeout)
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            router.probed(endpoint, false);
+            return;
+        }
+        httpClient().sendAsync(ping, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> router.probed(endpoint, error == null && response.statusCode() < 500));
+    }
 
-        return execute(request);
+    private static void discard(Object body) {
+        if (body instanceof InputStream) {
+            try {
+                ((InputStream) body).close();
+            } catch (IOException ignored) {
+                // Only releasing the connection
+            }
+        }
     }
 
-    private String execute(HttpRequest request) {
-        HttpResponse<String> response;
+    private <T> HttpResponse<T> send(EndpointRouter.Endpoint endpoint, Function<String, HttpRequest> request,
+                                     HttpResponse.BodyHandler<T> bodyHandler) throws IOException {
+        long start = System.nanoTime();
         try {
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<T> response = httpClient().send(request.apply(endpoint.baseUrl), bodyHandler);
+            if (response.statusCode() >= 500) {
+                router.failure(endpoint);
+            } else {
+                router.success(endpoint, System.nanoTime() - start);
+            }
+            return response;
         } catch (IOException e) {
-            throw new ApiException(0, "Network error: " + e.getMessage(), "");
+            router.failure(endpoint);
+            throw e;
         } catch (InterruptedException e) {
+            router.release(endpoint);
             Thread.currentThread().interrupt();
             throw new ApiException(0, "Request interrupted", "");
+        } catch (RuntimeException e) {
+            router.release(endpoint);
+            throw e;
         }
+    }
 
-        String body = response.body();
-        int statusCode = response.statusCode();
+    private HttpClient httpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                            .connectTimeout(timeout)
+                            .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
 
-        if (statusCode < 200 || statusCode >= 300) {
-            handleError(statusCode, body);
+    private ExecutorService lookups() {
+        ExecutorService executor = lookups;
+        if (executor == null) {
+            synchronized (this) {
+                executor = lookups;
+                if (executor == null) {
+                    executor = new ThreadPoolExecutor(0, MAX_LOOKUP_THREADS, 60, TimeUnit.SECONDS,
+                            new SynchronousQueue<>(), daemonThreads("auto-api-offers"),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                    lookups = executor;
+                }
+            }
         }
+        return executor;
+    }
 
-        return body;
+    private Gson gson() {
+        Gson parser = gson;
+        if (parser == null) {
+            synchronized (this) {
+                parser = gson;
+                if (parser == null) {
+                    parser = new GsonBuilder()
+                            .registerTypeAdapterFactory(new ModelTypeAdapterFactory(stringPool))
+                            .create();
+                    gson = parser;
+                }
+            }
+        }
+        return parser;
+    }
+
+    private static Duration retryAfter(HttpResponse<?> response) {
+        try {
+            return response.headers().firstValue("Retry-After")
+                    .map(value -> Duration.ofSeconds(Long.parseLong(value.trim())))
+                    .orElse(null);
+        } catch (NumberFormatException e) {
+            // HTTP-date form is not used by the API; fall back to the default cooldown
+            return null;
+        }
     }
 
     private void handleError(int statusCode, String body) {
         String message = String.format("API error: %d", statusCode);
 
         try {
-            JsonObject parsed = gson.fromJson(body, JsonObject.class);
+            JsonObject parsed = gson().fromJson(body, JsonObject.class);
             if (parsed != null && parsed.has("message")) {
                 message = parsed.get("message").getAsString();
             }
@@ -216,6 +700,37 @@ public class AutoApiClient {
         throw new ApiException(statusCode, message, body);
     }
 
+    private static String readFully(InputStream body) {
+        try (InputStream in = body) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ApiException(0, "Request failed: " + cause, "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(0, "Request interrupted", "");
+        }
+    }
+
+    static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     private static String encode(String value) {
         return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
@@ -0,0 +1,97 @@
+package com.autoapi.client;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Probabilistic {@link SeenSet}: a scalable Bloom filter. When the newest filter reaches its
+ * capacity, a new one with twice the capacity and half the error rate is added, so the
+ * combined false-positive rate stays below the target.
+ */
+final class BloomSeenSet implements SeenSet {
+
+    private static final class Filter {
+        final long[] bits;
+        final long bitCount;
+        final int hashes;
+        final long capacity;
+        long count;
+
+        Filter(long capacity, double falsePositiveRate) {
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6))];
+            this.bitCount = bits.length * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.capacity = capacity;
+        }
+
+        boolean contains(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+                if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(long h1, long h2) {
+            for (int i = 0; i < hashes; i++) {
+                long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+                bits[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            count++;
+        }
+    }
+
+    private final List<Filter> filters = new ArrayList<>();
+    private final double firstRate;
+    private long size;
+
+    BloomSeenSet(long expected, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        // Rates p/2, p/4, ... add up to less than p
+        this.firstRate = falsePositiveRate / 2;
+        filters.add(new Filter(Math.max(expected, 64), firstRate));
+    }
+
+    @Override
+    public synchronized boolean add(String source, String innerId) {
+        long h1 = SeenSet.hash(source, innerId);
+        long h2 = h1 >>> 32 | h1 << 32 | 1;
+        if (contains(h1, h2)) {
+            return false;
+        }
+        Filter current = filters.get(filters.size() - 1);
+        if (current.count >= current.capacity) {
+            current = new Filter(current.capacity * 2, firstRate / (1L << Math.min(filters.size(), 62)));
+            filters.add(current);
+        }
+        current.add(h1, h2);
+        size++;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(String source, String innerId) {
+        long h1 = SeenSet.hash(source, innerId);
+        return contains(h1, h1 >>> 32 | h1 << 32 | 1);
+    }
+
+    @Override
+    public synchronized long size() {
+        return size;
+    }
+
+    private boolean contains(long h1, long h2) {
+        for (Filter filter : filters) {
+            if (filter.contains(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.ChangesResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses the changes feed to the net effect per offer.
+ * Events are grouped by inner_id over a span of pages:
+ * added then removed disappears, repeated changes keep only the latest data,
+ * and added then changed is emitted as added with the latest data.
+ */
+public class ChangeCompactor {
+
+    private static final String ADDED = "added";
+    private static final String CHANGED = "changed";
+    private static final String REMOVED = "removed";
+
+    private final int pageSpan;
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+    private int pages;
+
+    /**
+     * Creates a compactor that emits once every {@code pageSpan} pages.
+     *
+     * @param pageSpan number of pages to group before emitting
+     */
+    public ChangeCompactor(int pageSpan) {
+        if (pageSpan < 1) {
+            throw new IllegalArgumentException("pageSpan must be positive");
+        }
+        this.pageSpan = pageSpan;
+    }
+
+    /**
+     * Compacts a list of change items in one go.
+     *
+     * @param items change items in change_id order
+     * @return net change per offer, ordered by the change_id of its last event
+     */
+    public static List<ChangeItem> compact(List<ChangeItem> items) {
+        ChangeCompactor compactor = new ChangeCompactor(1);
+        compactor.add(items);
+        return compactor.flush();
+    }
+
+    /**
+     * Adds a page from the changes feed.
+     *
+     * @param page changes page
+     * @return compacted items if the page span is complete, otherwise an empty list
+     */
+    public List<ChangeItem> accept(ChangesResponse page) {
+        if (page.getResult() != null) {
+            add(page.getResult());
+        }
+        if (++pages < pageSpan) {
+            return new ArrayList<>();
+        }
+        return flush();
+    }
+
+    /**
+     * Emits everything grouped so far, e.g. when the feed is caught up.
+     *
+     * @return net change per offer, ordered by the change_id of its last event
+     */
+    public List<ChangeItem> flush() {
+        List<ChangeItem> out = new ArrayList<>(pending.size());
+        for (Entry entry : pending.values()) {
+            ChangeItem net = entry.net();
+            if (net != null) {
+                out.add(net);
+            }
+        }
+        out.sort(Comparator.comparingInt(ChangeItem::getId));
+        pending.clear();
+        pages = 0;
+        return out;
+    }
+
+    /**
+     * Number of offers currently held back.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void add(List<ChangeItem> items) {
+        for (ChangeItem item : items) {
+            Entry entry = pending.get(item.getInnerId());
+            if (entry == null) {
+                pending.put(item.getInnerId(), new Entry(item));
+            } else {
+                entry.last = item;
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String firstType;
+        private ChangeItem last;
+
+        Entry(ChangeItem first) {
+            this.firstType = first.getChangeType();
+            this.last = first;
+        }
+
+        ChangeItem net() {
+            boolean removed = REMOVED.equals(last.getChangeType());
+            if (ADDED.equals(firstType)) {
+                return removed ? null : withType(ADDED);
+            }
+            if (removed) {
+                return last;
+            }
+            // Changed after changed, or re-listed after a removal: the offer exists with the latest data
+            return withType(CHANGED);
+        }
+
+        private ChangeItem withType(String type) {
+            if (type.equals(last.getChangeType())) {
+                return last;
+            }
+            return new ChangeItem(last.getId(), last.getInnerId(), type, last.getCreatedAt(), last.getData());
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.autoapi.client;
+
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.ChangesResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Parallel historical backfill of the changes feed.
+ * Resolves a change_id boundary for each day with {@link AutoApiClient#getChangeId(String, String)},
+ * crawls the resulting ranges concurrently with a bounded number of workers, and hands items
+ * to the consumer in global change_id order on the calling thread.
+ *
+ * <p>Progress of each range is checkpointed once its pages have been handed to the consumer,
+ * so a restarted backfill resumes each range where it stopped.
+ */
+public class ChangesBackfill {
+
+    /**
+     * Stores the crawl cursor of each range, keyed by the range's first change_id.
+     */
+    public interface Checkpoint {
+
+        /**
+         * Returns the saved cursor of a range, or -1 if the range has not been started.
+         */
+        int load(int rangeStart);
+
+        /**
+         * Saves the cursor of a range. A cursor at or past the range end marks it complete.
+         */
+        void save(int rangeStart, int cursor);
+
+        /**
+         * Persists saves that were deferred. Called when a run ends, whether or not it succeeded.
+         */
+        default void flush() {
+        }
+    }
+
+    private static final Checkpoint NO_CHECKPOINT = new Checkpoint() {
+        @Override
+        public int load(int rangeStart) {
+            return -1;
+        }
+
+        @Override
+        public void save(int rangeStart, int cursor) {
+        }
+    };
+
+    private final AutoApiClient client;
+    private final String source;
+    private int workers = 4;
+    private int bufferedPages = 16;
+    private Checkpoint checkpoint = NO_CHECKPOINT;
+
+    /**
+     * Creates a backfill for a source with 4 workers and no checkpointing.
+     *
+     * @param client client used to fetch changes
+     * @param source source platform name
+     */
+    public ChangesBackfill(AutoApiClient client, String source) {
+        this.client = client;
+        this.source = source;
+    }
+
+    /** Number of ranges crawled concurrently. */
+    public ChangesBackfill workers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /** Pages a worker may fetch ahead of the consumer before it blocks. */
+    public ChangesBackfill bufferedPages(int bufferedPages) {
+        if (bufferedPages < 1) {
+            throw new IllegalArgumentException("bufferedPages must be positive");
+        }
+        this.bufferedPages = bufferedPages;
+        return this;
+    }
+
+    /** Where to persist per-range progress. */
+    public ChangesBackfill checkpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * Returns a checkpoint persisted as a properties file, rewritten at most every 5 seconds
+     * and when the run ends.
+     *
+     * @param file checkpoint file; created on first write
+     * @return file-backed checkpoint
+     */
+    public static Checkpoint fileCheckpoint(Path file) {
+        return fileCheckpoint(file, Duration.ofSeconds(5));
+    }
+
+    /**
+     * Returns a checkpoint persisted as a properties file, rewritten at most once per interval
+     * and when the run ends. Each write goes to a temporary file that is synced and then moved
+     * over the checkpoint atomically. A crash loses at most one interval of progress, which is
+     * fetched and delivered again on restart.
+     *
+     * @param file     checkpoint file; created on first write
+     * @param interval minimum time between writes, or zero to write on every save
+     * @return file-backed checkpoint
+     */
+    public static Checkpoint fileCheckpoint(Path file, Duration interval) {
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("interval must not be negative");
+        }
+        return new FileCheckpoint(file, interval.toNanos());
+    }
+
+    /**
+     * Crawls all changes from the start of {@code from} up to the start of {@code to}.
+     *
+     * @param from     first day (inclusive)
+     * @param to       last day (exclusive)
+     * @param consumer receives items in change_id order, on the calling thread
+     * @return number of items handed to the consumer
+     */
+    public long run(LocalDate from, LocalDate to, Consumer<ChangeItem> consumer) {
+        if (!from.isBefore(to)) {
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, AutoApiClient.daemonThreads("auto-api-backfill"));
+        try {
+            List<int[]> ranges = resolveRanges(executor, from, to);
+            return crawl(executor, ranges, consumer);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<int[]> resolveRanges(ExecutorService executor, LocalDate from, LocalDate to) {
+        List<Future<Integer>> boundaries = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            String date = day.toString();
+            boundaries.add(executor.submit(() -> client.getChangeId(source, date)));
+        }
+
+        List<int[]> ranges = new ArrayList<>();
+        int start = AutoApiClient.await(boundaries.get(0));
+        for (int i = 1; i < boundaries.size(); i++) {
+            int end = AutoApiClient.await(boundaries.get(i));
+            if (end > start) {
+                ranges.add(new int[]{start, end});
+                start = end;
+            }
+        }
+        return ranges;
+    }
+
+    private long crawl(ExecutorService executor, List<int[]> ranges, Consumer<ChangeItem> consumer) {
+        List<BlockingQueue<Page>> queues = new ArrayList<>(ranges.size());
+        // Ranges are submitted in order, so the range being consumed is always running or done
+        for (int[] range : ranges) {
+            BlockingQueue<Page> queue = new ArrayBlockingQueue<>(bufferedPages);
+            queues.add(queue);
+            executor.execute(() -> walk(range[0], range[1], queue));
+        }
+
+        long delivered = 0;
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                int rangeStart = ranges.get(i)[0];
+                while (true) {
+                    Page page = take(queues.get(i));
+                    if (page.error != null) {
+                        throw page.error;
+                    }
+                    for (ChangeItem item : page.items) {
+                        consumer.accept(item);
+                    }
+                    delivered += page.items.size();
+                    checkpoint.save(rangeStart, page.cursor);
+                    if (page.last) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            checkpoint.flush();
+        }
+        return delivered;
+    }
+
+    private void walk(int start, int end, BlockingQueue<Page> queue) {
+        try {
+            int cursor = Math.max(start, checkpoint.load(start));
+            if (cursor >= end) {
+                queue.put(new Page(Collections.emptyList(), end, true, null));
+                return;
+            }
+            while (true) {
+                ChangesResponse response = client.getChanges(source, cursor);
+                List<ChangeItem> items = new ArrayList<>();
+                if (response.getResult() != null) {
+                    for (ChangeItem item : response.getResult()) {
+                        if (item.getId() < end) {
+                            items.add(item);
+                        }
+                    }
+                }
+                int next = response.getMeta() != null ? response.getMeta().getNextChangeId() : cursor;
+                // Stop at the range bound, at the head of the feed, or if the feed makes no progress
+                boolean last = items.isEmpty() || next <= cursor || next >= end;
+                queue.put(new Page(items, last ? end : next, last, null));
+                if (last) {
+                    return;
+                }
+                cursor = next;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // The consumer thread rethrows the error when it reaches this range
+            queue.clear();
+            queue.offer(new Page(Collections.emptyList(), start, true, e));
+        }
+    }
+
+    private static Page take(BlockingQueue<Page> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(0, "Backfill interrupted", "");
+        }
+    }
+
+    private static final class Page {
+        final List<ChangeItem> items;
+        final int cursor;
+        final boolean last;
+        final RuntimeException error;
+
+        Page(List<ChangeItem> items, int cursor, boolean last, RuntimeException error) {
+            this.items = items;
+            this.cursor = cursor;
+            this.last = last;
+            this.error = error;
+        }
+    }
+
+    private static final class FileCheckpoint implements Checkpoint {
+
+        private final Path file;
+        private final long intervalNanos;
+        private final Properties cursors = new Properties();
+        private long lastWrite = System.nanoTime();
+        private boolean dirty;
+
+        FileCheckpoint(Path file, long intervalNanos) {
+            this.file = file;
+            this.intervalNanos = intervalNanos;
+            if (Files.exists(file)) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    cursors.load(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public synchronized int load(int rangeStart) {
+            String cursor = cursors.getProperty(String.valueOf(rangeStart));
+            return cursor != null ? Integer.parseInt(cursor) : -1;
+        }
+
+        @Override
+        public synchronized void save(int rangeStart, int cursor) {
+            cursors.setProperty(String.valueOf(rangeStart), String.valueOf(cursor));
+            dirty = true;
+            if (System.nanoTime() - lastWrite >= intervalNanos) {
+                write();
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (dirty) {
+                write();
+            }
+        }
+
+        private void write() {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    cursors.store(Channels.newOutputStream(channel), "auto-api changes backfill");
+                    channel.force(false);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            dirty = false;
+            lastWrite = System.nanoTime();
+        }
+    }
+}
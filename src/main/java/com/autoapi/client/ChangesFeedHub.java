@@ -0,0 +1,494 @@
+package com.autoapi.client;
+
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.ChangesResponse;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares one changes feed of a source between many subscribers in the same process.
+ * A single fetcher thread requests and parses each page once and fans the items out
+ * to a bounded buffer per subscriber, each with its own cursor.
+ *
+ * <p>A subscriber whose buffer is full is detached from the live feed instead of stalling
+ * the others; it then re-reads what it missed from a {@link Replay} source on its own
+ * thread and re-attaches once it has caught up. Without a replay source, a full buffer
+ * blocks the fetcher until the subscriber drains it.
+ */
+public class ChangesFeedHub implements AutoCloseable {
+
+    /**
+     * Source of changes for subscribers that fell behind the live feed.
+     */
+    public interface Replay {
+
+        /**
+         * Returns the next changes with change_id at or after {@code fromChangeId}, in order.
+         * Returns an empty list if there are none yet.
+         */
+        List<ChangeItem> read(int fromChangeId);
+    }
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+    private static final long OFFER_RETRY_MILLIS = 100;
+
+    private final AutoApiClient client;
+    private final String source;
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private final Object publishLock = new Object();
+    /** Where the fetcher waits between polls; close() wakes it. */
+    private final Object idle = new Object();
+    private int bufferSize = 10_000;
+    private Duration pollInterval = Duration.ofSeconds(5);
+    private Replay replay;
+    private ChangesSpillLog spillLog;
+    private SeenSet seenSet;
+    /**
+     * Hashes of seen offers the feed removed and has not added again, oldest first; an add for
+     * one of them is a relisting and passes the seen set. Only the fetcher thread uses it.
+     */
+    private final Set<Long> removed = new LinkedHashSet<>();
+    private int maxTrackedRemovals = 100_000;
+    private volatile int cursor;
+    private int lastPublishedId;
+    /** Pages published so far; guarded by publishLock, which is notified on every publish. */
+    private long publishCount;
+    private volatile boolean running;
+    private volatile ApiException lastError;
+    private Thread fetcher;
+
+    /**
+     * Creates a hub that replays missed changes from the API.
+     *
+     * @param client       client used to fetch changes
+     * @param source       source platform name
+     * @param fromChangeId change ID to start from
+     */
+    public ChangesFeedHub(AutoApiClient client, String source, int fromChangeId) {
+        this.client = client;
+        this.source = source;
+        this.cursor = fromChangeId;
+        this.replay = from -> {
+            List<ChangeItem> result = client.getChanges(source, from).getResult();
+            return result != null ? result : Collections.emptyList();
+        };
+    }
+
+    /** Default per-subscriber buffer size, in items (default: 10,000). */
+    public ChangesFeedHub bufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /** Delay before polling again once the feed is caught up or a request failed (default: 5 seconds). */
+    public ChangesFeedHub pollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    /** Where lagging subscribers re-read missed changes; null makes full buffers block the fetcher. */
+    public ChangesFeedHub replay(Replay replay) {
+        this.replay = replay;
+        return this;
+    }
+
+    /**
+     * Appends every fetched page to a local log before publishing it, and replays lagging
+     * subscribers from that log instead of the API. The fetcher then never waits for subscribers.
+     */
+    public ChangesFeedHub spillLog(ChangesSpillLog spillLog) {
+        this.spillLog = spillLog;
+        this.replay = spillLog;
+        return this;
+    }
+
+    /**
+     * Drops "added" events for offers already in the set, e.g. offers ingested by an
+     * {@link OffersScanner} sharing it, and records every other added offer. An add that follows
+     * the offer's removal is a relisting and is delivered; see {@link #maxTrackedRemovals(int)}.
+     * Filtering happens before the spill log and subscribers; items replayed from the API are
+     * not filtered.
+     */
+    public ChangesFeedHub seenSet(SeenSet seenSet) {
+        this.seenSet = seenSet;
+        return this;
+    }
+
+    /**
+     * Number of removed offers remembered so that their relisting passes the seen set
+     * (default: 100,000, about 80 bytes each). A removal is forgotten once the offer is added
+     * again, or when newer removals push it out; a relisting after that is dropped as seen.
+     */
+    public ChangesFeedHub maxTrackedRemovals(int maxTrackedRemovals) {
+        if (maxTrackedRemovals < 0) {
+            throw new IllegalArgumentException("maxTrackedRemovals must not be negative");
+        }
+        this.maxTrackedRemovals = maxTrackedRemovals;
+        return this;
+    }
+
+    /**
+     * Starts the fetcher thread.
+     */
+    public synchronized ChangesFeedHub start() {
+        if (fetcher != null) {
+            throw new IllegalStateException("Hub already started");
+        }
+        running = true;
+        fetcher = AutoApiClient.daemonThreads("auto-api-feed-" + source).newThread(this::fetchLoop);
+        fetcher.start();
+        return this;
+    }
+
+    /**
+     * Subscribes to changes published from now on, with the default buffer size.
+     */
+    public Subscription subscribe() {
+        return subscribe(bufferSize);
+    }
+
+    /**
+     * Subscribes to changes published from now on.
+     *
+     * @param bufferSize items buffered for this subscriber before it falls back to replay
+     * @return subscription to poll changes from
+     */
+    public Subscription subscribe(int bufferSize) {
+        synchronized (publishLock) {
+            Subscription subscription = new Subscription(bufferSize, lastPublishedId);
+            subscribers.add(subscription);
+            return subscription;
+        }
+    }
+
+    /**
+     * Next change ID the fetcher will request.
+     */
+    public int getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Last error of the fetcher, or null if the last request succeeded. The fetcher keeps retrying.
+     * Failures other than API errors, such as a malformed page, are reported with status 0 and
+     * the original exception as the cause.
+     */
+    public ApiException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Stops the fetcher thread and waits for it to finish the page it is on, so nothing is
+     * published or appended to the spill log after this returns. A request in flight is
+     * waited for up to 30 seconds. Subscribers can still drain what they have buffered.
+     *
+     * <p>The fetcher is not interrupted: an interrupt during spill log I/O would close the
+     * log's file channel for good.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        synchronized (idle) {
+            idle.notifyAll();
+        }
+        if (fetcher != null && fetcher != Thread.currentThread()) {
+            try {
+                fetcher.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void fetchLoop() {
+        while (running) {
+            try {
+                int from = cursor;
+                ChangesResponse page = client.getChanges(source, from);
+                lastError = null;
+                if (!running) {
+                    return;
+                }
+                List<ChangeItem> fetched = page.getResult() != null ? page.getResult() : Collections.emptyList();
+                List<ChangeItem> items = seenSet != null ? dropSeenAdds(fetched) : fetched;
+                if (spillLog != null) {
+                    try {
+                        spillLog.append(items);
+                    } catch (UncheckedIOException e) {
+                        // Retry the same page after the poll interval
+                        throw new ApiException(0, "Failed to write spill log: " + e.getCause().getMessage(), "");
+                    }
+                }
+                if (seenSet != null) {
+                    // Only once the page is safely logged, so a retried page is filtered the same way
+                    record(items);
+                }
+                int next = page.getMeta() != null ? page.getMeta().getNextChangeId() : from;
+                if (next > from) {
+                    // Advance before publishing, so the cursor is never behind what subscribers have seen
+                    cursor = next;
+                }
+                publish(items);
+
+                if (fetched.isEmpty() || next <= from) {
+                    pause();
+                }
+            } catch (RuntimeException e) {
+                // A malformed page or a failing seen set must not end the fetcher: report and retry
+                lastError = e instanceof ApiException ? (ApiException) e : failure(e);
+                try {
+                    pause();
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static ApiException failure(RuntimeException e) {
+        ApiException wrapped = new ApiException(0, "Fetcher failed: " + e, "");
+        wrapped.initCause(e);
+        return wrapped;
+    }
+
+    /** Waits for the poll interval, or until close(). */
+    private void pause() throws InterruptedException {
+        long millis = pollInterval.toMillis();
+        synchronized (idle) {
+            if (running && millis > 0) {
+                idle.wait(millis);
+            }
+        }
+    }
+
+    /**
+     * Drops adds of seen offers, except the first add after a removal. Reads the tracked
+     * removals without changing them; {@link #record(List)} does that once the page is logged.
+     */
+    private List<ChangeItem> dropSeenAdds(List<ChangeItem> items) {
+        List<ChangeItem> kept = new ArrayList<>(items.size());
+        // Removals and relistings earlier in this page, which record() has not applied yet
+        Set<Long> removedHere = new HashSet<>();
+        Set<Long> relistedHere = new HashSet<>();
+        for (ChangeItem item : items) {
+            long hash = SeenSet.hash(source, item.getInnerId());
+            if ("removed".equals(item.getChangeType())) {
+                removedHere.add(hash);
+                relistedHere.remove(hash);
+                kept.add(item);
+            } else if (!"added".equals(item.getChangeType())) {
+                kept.add(item);
+            } else if (removedHere.remove(hash)
+                    || (!relistedHere.contains(hash) && removed.contains(hash))) {
+                relistedHere.add(hash);
+                kept.add(item);
+            } else if (!seenSet.contains(source, item.getInnerId())) {
+                kept.add(item);
+            }
+        }
+        return kept;
+    }
+
+    /** Marks delivered adds as seen and tracks removals of seen offers, in feed order. */
+    private void record(List<ChangeItem> items) {
+        for (ChangeItem item : items) {
+            long hash = SeenSet.hash(source, item.getInnerId());
+            if ("added".equals(item.getChangeType())) {
+                removed.remove(hash);
+                seenSet.add(source, item.getInnerId());
+            } else if ("removed".equals(item.getChangeType()) && seenSet.contains(source, item.getInnerId())) {
+                // Re-inserted at the end, so eviction drops the longest-standing removals first
+                removed.remove(hash);
+                if (maxTrackedRemovals > 0) {
+                    removed.add(hash);
+                }
+                if (removed.size() > maxTrackedRemovals) {
+                    Iterator<Long> oldest = removed.iterator();
+                    oldest.next();
+                    oldest.remove();
+                }
+            }
+        }
+    }
+
+    private void publish(List<ChangeItem> items) throws InterruptedException {
+        if (items.isEmpty()) {
+            return;
+        }
+        synchronized (publishLock) {
+            for (Subscription subscription : subscribers) {
+                subscription.offer(items);
+            }
+            lastPublishedId = Math.max(lastPublishedId, items.get(items.size() - 1).getId());
+            publishCount++;
+            publishLock.notifyAll();
+        }
+    }
+
+    /**
+     * A subscriber's view of the feed. Poll it from a single thread.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final BlockingQueue<ChangeItem> buffer;
+        private final ArrayDeque<ChangeItem> replayed = new ArrayDeque<>();
+        private int highWater;
+        private volatile boolean detached;
+        private volatile boolean closed;
+        private volatile int lastChangeId;
+
+        private Subscription(int bufferSize, int startAfter) {
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.highWater = startAfter;
+            this.lastChangeId = startAfter;
+        }
+
+        /**
+         * Returns the next change, waiting up to the given time. A detached subscriber reads
+         * the replay source again only after the hub publishes a new page.
+         *
+         * @return next change, or null if none arrived in time
+         */
+        public ChangeItem poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            ChangeItem item = next();
+            while (item == null) {
+                if (detached) {
+                    // Read before replaying, so a page published during the read is not missed
+                    long published = currentPublishCount();
+                    item = catchUp();
+                    if (item == null && detached && !awaitPublish(published, deadline)) {
+                        break;
+                    }
+                } else {
+                    item = buffer.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (item == null && !detached) {
+                        break;
+                    }
+                }
+            }
+            if (item != null) {
+                lastChangeId = item.getId();
+            }
+            return item;
+        }
+
+        /**
+         * Change ID of the last item returned by {@link #poll}.
+         */
+        public int getLastChangeId() {
+            return lastChangeId;
+        }
+
+        /**
+         * Whether the subscriber is currently catching up from the replay source.
+         */
+        public boolean isDetached() {
+            return detached;
+        }
+
+        /**
+         * Unsubscribes and drops buffered items, releasing a fetcher waiting for buffer space.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+        }
+
+        private ChangeItem next() {
+            // Items replayed while catching up come before anything buffered after re-attaching
+            ChangeItem item = replayed.poll();
+            return item != null ? item : buffer.poll();
+        }
+
+        /** Called by the fetcher with the publish lock held. */
+        private void offer(List<ChangeItem> items) throws InterruptedException {
+            if (detached || closed) {
+                return;
+            }
+            List<ChangeItem> fresh = new ArrayList<>(items.size());
+            for (ChangeItem item : items) {
+                if (item.getId() > highWater) {
+                    fresh.add(item);
+                }
+            }
+            if (fresh.isEmpty()) {
+                return;
+            }
+            if (replay != null && buffer.remainingCapacity() < fresh.size()) {
+                detached = true;
+                return;
+            }
+            for (ChangeItem item : fresh) {
+                // Without a replay source, wait for space, but not for a subscriber or hub that is gone
+                while (!buffer.offer(item, OFFER_RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (closed || !running) {
+                        return;
+                    }
+                }
+            }
+            highWater = fresh.get(fresh.size() - 1).getId();
+        }
+
+        private long currentPublishCount() {
+            synchronized (publishLock) {
+                return publishCount;
+            }
+        }
+
+        /** Waits until a page is published after {@code published}; false if the deadline passed. */
+        private boolean awaitPublish(long published, long deadline) throws InterruptedException {
+            synchronized (publishLock) {
+                while (publishCount == published) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(publishLock, remaining);
+                }
+                return true;
+            }
+        }
+
+        private ChangeItem catchUp() {
+            int from = lastChangeId + 1;
+            List<ChangeItem> page = replay.read(from);
+            int replayedUpTo = lastChangeId;
+            for (ChangeItem item : page) {
+                if (item.getId() > replayedUpTo) {
+                    replayed.add(item);
+                    replayedUpTo = item.getId();
+                }
+            }
+            synchronized (publishLock) {
+                if (replayedUpTo >= lastPublishedId) {
+                    // Caught up: take live items again, skipping what replay already returned
+                    highWater = Math.max(highWater, replayedUpTo);
+                    detached = false;
+                }
+            }
+            return replayed.poll();
+        }
+    }
+}
@@ -0,0 +1,519 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.ModelTypeAdapterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only local log of changes, split into segment files named after their first change_id.
+ * A fetcher appends pages at network speed while any number of consumers read from any
+ * change_id at their own pace, so slow processing no longer holds back the feed.
+ *
+ * <p>Each record is {@code length | crc32 | change_id | item JSON}. On open, only the newest
+ * segment is scanned and truncated after its last complete record, so recovery after a crash
+ * takes time proportional to one segment rather than the whole log.
+ *
+ * <p>Use it as the {@link ChangesFeedHub.Replay} source of a hub (see {@link ChangesFeedHub#spillLog})
+ * or read it directly with {@link #read(int, int)}.
+ */
+public class ChangesSpillLog implements ChangesFeedHub.Replay, AutoCloseable {
+
+    private static final int HEADER_BYTES = 12;
+    /** Records between sparse index entries. */
+    private static final int INDEX_INTERVAL = 128;
+    private static final String SUFFIX = ".log";
+    /** Largest segmentBytes, so a segment (at most one record over it) can be memory-mapped whole. */
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapterFactory()).create();
+
+    private final Path directory;
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReadWriteLock retentionLock = new ReentrantReadWriteLock();
+    private long segmentBytes = 64L * 1024 * 1024;
+    private long maxBytes = Long.MAX_VALUE;
+    private Duration maxAge;
+    private boolean memoryMapped;
+    private boolean fsync;
+    private volatile int lastChangeId = -1;
+
+    /**
+     * Opens the log in a directory, creating it if needed, and recovers the newest segment.
+     *
+     * @param directory directory holding the segment files
+     */
+    public ChangesSpillLog(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    int firstId = Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+                    segments.put(firstId, new Segment(file, firstId));
+                }
+            }
+            if (!segments.isEmpty()) {
+                Segment newest = segments.lastEntry().getValue();
+                newest.recover();
+                if (newest.lastId < 0 && segments.size() > 1) {
+                    // Crashed right after rotating: the empty segment is recreated on the next append
+                    segments.pollLastEntry().getValue().delete();
+                    newest = segments.lastEntry().getValue();
+                    newest.recover();
+                }
+                lastChangeId = newest.lastId;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Size at which the active segment is closed and a new one started (default: 64 MB, at most 1 GB). */
+    public ChangesSpillLog segmentBytes(long segmentBytes) {
+        if (segmentBytes < 1) {
+            throw new IllegalArgumentException("segmentBytes must be positive");
+        }
+        if (segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be at most " + MAX_SEGMENT_BYTES);
+        }
+        this.segmentBytes = segmentBytes;
+        return this;
+    }
+
+    /**
+     * Drops the oldest segments once the log is larger than {@code maxBytes} or a segment was
+     * last written more than {@code maxAge} ago. The active segment is never dropped.
+     *
+     * @param maxAge   maximum segment age, or null for no age limit
+     * @param maxBytes maximum total size of the log
+     */
+    public ChangesSpillLog retention(Duration maxAge, long maxBytes) {
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /** Whether closed segments are read through a memory mapping instead of positional reads (default: false). */
+    public ChangesSpillLog memoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /** Whether every append is forced to disk before it returns (default: false, left to the OS). */
+    public ChangesSpillLog fsync(boolean fsync) {
+        this.fsync = fsync;
+        return this;
+    }
+
+    /**
+     * Appends a page of changes. Items at or below the last appended change_id are skipped,
+     * so re-fetching a page after a restart is harmless.
+     *
+     * @param items changes in change_id order
+     */
+    public synchronized void append(List<ChangeItem> items) {
+        try {
+            for (ChangeItem item : items) {
+                if (item.getId() <= lastChangeId) {
+                    continue;
+                }
+                Segment active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+                if (active == null || active.size >= segmentBytes) {
+                    active = rotate(item.getId());
+                }
+                active.append(item.getId(), GSON.toJson(item).getBytes(StandardCharsets.UTF_8));
+                lastChangeId = item.getId();
+            }
+            if (fsync && !segments.isEmpty()) {
+                segments.lastEntry().getValue().force();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads up to 1000 changes with change_id at or after {@code fromChangeId}.
+     */
+    @Override
+    public List<ChangeItem> read(int fromChangeId) {
+        return read(fromChangeId, 1000);
+    }
+
+    /**
+     * Reads changes with change_id at or after {@code fromChangeId}, in order.
+     * If retention already dropped that change_id, reading starts at the oldest one kept.
+     *
+     * @param fromChangeId first change_id to return
+     * @param maxItems     maximum number of items
+     * @return changes, or an empty list if none have been appended yet
+     */
+    public List<ChangeItem> read(int fromChangeId, int maxItems) {
+        List<ChangeItem> items = new ArrayList<>();
+        retentionLock.readLock().lock();
+        try {
+            Map.Entry<Integer, Segment> start = segments.floorEntry(fromChangeId);
+            Integer key = start != null ? start.getKey() : segments.isEmpty() ? null : segments.firstKey();
+            while (key != null && items.size() < maxItems) {
+                Segment segment = segments.get(key);
+                if (memoryMapped && !key.equals(segments.lastKey())) {
+                    segment.seal(true);
+                }
+                segment.read(fromChangeId, maxItems, items);
+                key = segments.higherKey(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            retentionLock.readLock().unlock();
+        }
+        return items;
+    }
+
+    /**
+     * Last appended change_id, or -1 if the log is empty.
+     */
+    public int getLastChangeId() {
+        return lastChangeId;
+    }
+
+    /**
+     * Oldest change_id still kept, or -1 if the log is empty.
+     */
+    public int getFirstChangeId() {
+        Map.Entry<Integer, Segment> first = segments.firstEntry();
+        return first != null ? first.getKey() : -1;
+    }
+
+    /**
+     * Change_id to resume fetching from after a restart.
+     *
+     * @param defaultChangeId returned if the log is empty
+     */
+    public int getNextChangeId(int defaultChangeId) {
+        int last = lastChangeId;
+        return last >= 0 ? last + 1 : defaultChangeId;
+    }
+
+    /**
+     * Total size of all segments, in bytes.
+     */
+    public long sizeBytes() {
+        long total = 0;
+        for (Segment segment : segments.values()) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void close() {
+        // Monitor before the retention lock, the same order as append() -> rotate() -> enforceRetention()
+        retentionLock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            retentionLock.writeLock().unlock();
+        }
+    }
+
+    private Segment rotate(int firstId) throws IOException {
+        if (!segments.isEmpty()) {
+            Segment sealed = segments.lastEntry().getValue();
+            sealed.force();
+            sealed.seal(memoryMapped);
+        }
+        Segment segment = new Segment(directory.resolve(String.format("%020d%s", firstId, SUFFIX)), firstId);
+        segment.recover();
+        segments.put(firstId, segment);
+        enforceRetention();
+        return segment;
+    }
+
+    private void enforceRetention() throws IOException {
+        long total = sizeBytes();
+        long now = System.currentTimeMillis();
+        List<Segment> expired = new ArrayList<>();
+        for (Segment segment : segments.headMap(segments.lastKey()).values()) {
+            boolean tooOld = maxAge != null
+                    && now - Files.getLastModifiedTime(segment.file).toMillis() > maxAge.toMillis();
+            if (total <= maxBytes && !tooOld) {
+                break;
+            }
+            expired.add(segment);
+            total -= segment.size;
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        retentionLock.writeLock().lock();
+        try {
+            for (Segment segment : expired) {
+                segments.remove(segment.firstId);
+                segment.delete();
+            }
+        } finally {
+            retentionLock.writeLock().unlock();
+        }
+    }
+
+    private static final class Segment {
+
+        final Path file;
+        final int firstId;
+        /** Replaced if a thread interrupted during I/O closes it; see {@link #reopenAfter}. */
+        private volatile FileChannel channel;
+        private volatile boolean closed;
+        /** Bytes of complete records; readers never look past it. */
+        volatile long size;
+        int lastId = -1;
+        private int recordCount;
+        /** Sparse index: change_id and position of every INDEX_INTERVAL-th record. */
+        private int[] indexIds = new int[16];
+        private long[] indexPositions = new long[16];
+        private int indexSize;
+        private volatile boolean indexed;
+        private volatile MappedByteBuffer mapped;
+
+        Segment(Path file, int firstId) throws IOException {
+            this.file = file;
+            this.firstId = firstId;
+            this.channel = open(file);
+            this.size = channel.size();
+        }
+
+        /** Scans the segment, truncates a torn last record and builds the index. */
+        void recover() throws IOException {
+            long fileSize = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            while (position + HEADER_BYTES <= fileSize) {
+                header.clear();
+                readFully(header, position);
+                int length = header.getInt(0);
+                int checksum = header.getInt(4);
+                int id = header.getInt(8);
+                if (length <= 0 || position + HEADER_BYTES + length > fileSize) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(payload, position + HEADER_BYTES);
+                crc.reset();
+                crc.update(payload.array());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                addIndex(id, position);
+                lastId = id;
+                position += HEADER_BYTES + length;
+            }
+            if (position < fileSize) {
+                channel.truncate(position);
+            }
+            size = position;
+            indexed = true;
+        }
+
+        void append(int id, byte[] payload) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            record.putInt(payload.length).putInt((int) crc.getValue()).putInt(id).put(payload).flip();
+            long position = size;
+            while (record.hasRemaining()) {
+                try {
+                    channel.write(record, position + record.position());
+                } catch (ClosedChannelException e) {
+                    reopenAfter(e);
+                }
+            }
+            addIndex(id, position);
+            lastId = id;
+            // Publish the record to readers only once it is fully written
+            size = position + HEADER_BYTES + payload.length;
+        }
+
+        void force() throws IOException {
+            while (true) {
+                try {
+                    channel.force(false);
+                    return;
+                } catch (ClosedChannelException e) {
+                    reopenAfter(e);
+                }
+            }
+        }
+
+        synchronized void seal(boolean map) throws IOException {
+            // Segments written before the size cap may be too large for one mapping; they keep positional reads
+            if (map && mapped == null && size > 0 && size <= Integer.MAX_VALUE) {
+                while (mapped == null) {
+                    try {
+                        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    } catch (ClosedChannelException e) {
+                        reopenAfter(e);
+                    }
+                }
+            }
+        }
+
+        void read(int fromId, int maxItems, List<ChangeItem> out) throws IOException {
+            long end = size;
+            long position = seek(fromId);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= end && out.size() < maxItems) {
+                header.clear();
+                readFully(header, position);
+                int length = header.getInt(0);
+                int id = header.getInt(8);
+                if (id >= fromId) {
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(payload, position + HEADER_BYTES);
+                    out.add(GSON.fromJson(new String(payload.array(), StandardCharsets.UTF_8), ChangeItem.class));
+                }
+                position += HEADER_BYTES + length;
+            }
+        }
+
+        void close() throws IOException {
+            closed = true;
+            mapped = null;
+            channel.close();
+        }
+
+        /**
+         * An interrupt during I/O closes the channel for every thread. Unless the log was closed,
+         * open it again, so the log stays usable; the interrupted thread still gets its exception
+         * and others retry.
+         */
+        private void reopenAfter(ClosedChannelException e) throws IOException {
+            synchronized (this) {
+                if (closed) {
+                    throw e;
+                }
+                if (!channel.isOpen()) {
+                    channel = open(file);
+                }
+            }
+            if (e instanceof ClosedByInterruptException) {
+                throw e;
+            }
+        }
+
+        private static FileChannel open(Path file) throws IOException {
+            return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        void delete() throws IOException {
+            close();
+            Files.deleteIfExists(file);
+        }
+
+        /** Position of the last indexed record at or before fromId. */
+        private long seek(int fromId) throws IOException {
+            if (!indexed) {
+                synchronized (this) {
+                    if (!indexed) {
+                        buildIndex();
+                    }
+                }
+            }
+            synchronized (this) {
+                int low = 0;
+                int high = indexSize - 1;
+                long position = 0;
+                while (low <= high) {
+                    int mid = (low + high) >>> 1;
+                    if (indexIds[mid] <= fromId) {
+                        position = indexPositions[mid];
+                        low = mid + 1;
+                    } else {
+                        high = mid - 1;
+                    }
+                }
+                return position;
+            }
+        }
+
+        /** Index of a closed segment opened from disk; record headers are trusted. */
+        private void buildIndex() throws IOException {
+            long end = size;
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (position + HEADER_BYTES <= end) {
+                header.clear();
+                readFully(header, position);
+                addIndex(header.getInt(8), position);
+                position += HEADER_BYTES + header.getInt(0);
+            }
+            indexed = true;
+        }
+
+        private synchronized void addIndex(int id, long position) {
+            if (recordCount++ % INDEX_INTERVAL != 0) {
+                return;
+            }
+            if (indexSize == indexIds.length) {
+                int[] ids = new int[indexSize * 2];
+                long[] positions = new long[indexSize * 2];
+                System.arraycopy(indexIds, 0, ids, 0, indexSize);
+                System.arraycopy(indexPositions, 0, positions, 0, indexSize);
+                indexIds = ids;
+                indexPositions = positions;
+            }
+            indexIds[indexSize] = id;
+            indexPositions[indexSize] = position;
+            indexSize++;
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            MappedByteBuffer map = mapped;
+            if (map != null) {
+                ByteBuffer slice = map.duplicate();
+                slice.position((int) position).limit((int) position + buffer.remaining());
+                buffer.put(slice);
+                return;
+            }
+            while (buffer.hasRemaining()) {
+                int read;
+                try {
+                    read = channel.read(buffer, position + buffer.position());
+                } catch (ClosedChannelException e) {
+                    reopenAfter(e);
+                    continue;
+                }
+                if (read < 0) {
+                    throw new IOException("Unexpected end of segment " + file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.autoapi.client;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker for one source and endpoint.
+ * Opens after consecutive failures, rejects calls while open, then lets a single
+ * probe call through (half-open) and closes again if it succeeds.
+ */
+final class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private int consecutiveFailures;
+    private boolean open;
+    private long openUntil;
+    private boolean probing;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Returns whether a call may proceed. Each permitted call must end with
+     * {@link #success()}, {@link #failure()} or {@link #release()}.
+     */
+    synchronized boolean tryAcquire() {
+        if (!open) {
+            return true;
+        }
+        if (probing || System.nanoTime() - openUntil < 0) {
+            return false;
+        }
+        probing = true;
+        return true;
+    }
+
+    synchronized void success() {
+        consecutiveFailures = 0;
+        open = false;
+        probing = false;
+    }
+
+    synchronized void failure() {
+        consecutiveFailures++;
+        if (probing || consecutiveFailures >= failureThreshold) {
+            open = true;
+            openUntil = System.nanoTime() + openNanos;
+            probing = false;
+        }
+    }
+
+    /** Ends a call that says nothing about the upstream's health, e.g. an interrupted one. */
+    synchronized void release() {
+        probing = false;
+    }
+
+    synchronized boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,176 @@
+package com.autoapi.client;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks a base URL per request from a set of equivalent endpoints.
+ * Uses power-of-two-choices on a moving average of latency weighted by in-flight requests,
+ * and ejects an endpoint after consecutive failures. Once the ejection period has passed,
+ * {@link #probeDue()} hands the endpoint out for a single out-of-band probe; regular requests
+ * only go to an ejected endpoint when no healthy one is left.
+ */
+final class EndpointRouter {
+
+    /** Weight of the latest sample in the latency moving average. */
+    private static final double ALPHA = 0.3;
+
+    static final class Endpoint {
+        final String baseUrl;
+        private double latencyNanos;
+        private int inFlight;
+        private int consecutiveFailures;
+        private long ejectedUntil;
+        private boolean probing;
+
+        Endpoint(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        private boolean ejected() {
+            return ejectedUntil != 0;
+        }
+
+        private double score() {
+            return latencyNanos * (inFlight + 1);
+        }
+    }
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final int failureThreshold;
+    private final long ejectNanos;
+
+    EndpointRouter(List<String> baseUrls, int failureThreshold, Duration ejectDuration) {
+        if (baseUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one base URL is required");
+        }
+        for (String baseUrl : baseUrls) {
+            endpoints.add(new Endpoint(baseUrl.replaceAll("/+$", "")));
+        }
+        this.failureThreshold = failureThreshold;
+        this.ejectNanos = ejectDuration.toNanos();
+    }
+
+    /**
+     * Picks an endpoint for a request.
+     *
+     * @param exclude endpoint that just failed, or null
+     * @return chosen endpoint, or null if exclude was given and no other endpoint is usable
+     */
+    synchronized Endpoint select(Endpoint exclude) {
+        long now = System.nanoTime();
+        List<Endpoint> healthy = new ArrayList<>(endpoints.size());
+        Endpoint probe = null;
+
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint == exclude) {
+                continue;
+            }
+            if (!endpoint.ejected()) {
+                healthy.add(endpoint);
+            } else if (!endpoint.probing && now - endpoint.ejectedUntil >= 0 && probe == null) {
+                probe = endpoint;
+            }
+        }
+
+        Endpoint chosen;
+        if (healthy.isEmpty() && probe != null) {
+            probe.probing = true;
+            chosen = probe;
+        } else if (healthy.size() == 1) {
+            chosen = healthy.get(0);
+        } else if (healthy.size() > 1) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int a = random.nextInt(healthy.size());
+            int b = random.nextInt(healthy.size() - 1);
+            if (b >= a) {
+                b++;
+            }
+            Endpoint first = healthy.get(a);
+            Endpoint second = healthy.get(b);
+            chosen = first.score() <= second.score() ? first : second;
+        } else if (exclude != null) {
+            return null;
+        } else {
+            // Everything is ejected: use the endpoint that has been out the longest rather than failing locally
+            chosen = endpoints.get(0);
+            for (Endpoint endpoint : endpoints) {
+                if (endpoint.ejectedUntil - chosen.ejectedUntil < 0) {
+                    chosen = endpoint;
+                }
+            }
+        }
+
+        chosen.inFlight++;
+        return chosen;
+    }
+
+    synchronized void success(Endpoint endpoint, long latencyNanos) {
+        endpoint.inFlight--;
+        endpoint.latencyNanos = endpoint.latencyNanos == 0
+                ? latencyNanos
+                : ALPHA * latencyNanos + (1 - ALPHA) * endpoint.latencyNanos;
+        endpoint.consecutiveFailures = 0;
+        endpoint.ejectedUntil = 0;
+        endpoint.probing = false;
+    }
+
+    synchronized void failure(Endpoint endpoint) {
+        endpoint.inFlight--;
+        endpoint.consecutiveFailures++;
+        if (endpoint.probing || endpoint.consecutiveFailures >= failureThreshold) {
+            // Never 0, which marks a healthy endpoint
+            endpoint.ejectedUntil = (System.nanoTime() + ejectNanos) | 1;
+            endpoint.probing = false;
+        }
+    }
+
+    /**
+     * Returns an ejected endpoint whose ejection period has passed and marks it as being probed,
+     * so a cheap request can check it without holding up regular traffic.
+     *
+     * @return endpoint to probe, or null if none is due
+     */
+    synchronized Endpoint probeDue() {
+        long now = System.nanoTime();
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.ejected() && !endpoint.probing && now - endpoint.ejectedUntil >= 0) {
+                endpoint.probing = true;
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    /** Ends a probe from {@link #probeDue()}: a healthy endpoint rejoins, a failed one is ejected again. */
+    synchronized void probed(Endpoint endpoint, boolean healthy) {
+        if (!endpoint.probing) {
+            // A regular request settled the endpoint's state meanwhile
+            return;
+        }
+        endpoint.probing = false;
+        if (healthy) {
+            endpoint.consecutiveFailures = 0;
+            endpoint.ejectedUntil = 0;
+        } else {
+            endpoint.ejectedUntil = (System.nanoTime() + ejectNanos) | 1;
+        }
+    }
+
+    /** Ends a request that says nothing about the endpoint's health, e.g. an interrupted one. */
+    synchronized void release(Endpoint endpoint) {
+        endpoint.inFlight--;
+        endpoint.probing = false;
+    }
+
+    synchronized boolean isEjected(String baseUrl) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.baseUrl.equals(baseUrl)) {
+                return endpoint.ejected();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,120 @@
+package com.autoapi.client;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Exact {@link SeenSet} over 64-bit hashes: open addressing with linear probing in a
+ * power-of-two table of longs, on the heap or in direct memory. 0 marks an empty slot.
+ */
+final class LongHashSeenSet implements SeenSet {
+
+    private static final double MAX_LOAD = 0.5;
+    private static final int MAX_CAPACITY = 1 << 30;
+    /** A direct buffer is limited to 2 GB. */
+    private static final int MAX_OFF_HEAP_CAPACITY = 1 << 27;
+
+    private final boolean offHeap;
+    private LongBuffer table;
+    private int mask;
+    private long size;
+
+    LongHashSeenSet(long expected, boolean offHeap) {
+        this.offHeap = offHeap;
+        long needed = (long) Math.ceil(Math.max(expected, 16) / MAX_LOAD);
+        if (needed > maxCapacity()) {
+            throw new IllegalArgumentException("expected is too large: " + expected);
+        }
+        allocate(Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    @Override
+    public boolean add(String source, String innerId) {
+        return add(SeenSet.hash(source, innerId));
+    }
+
+    @Override
+    public boolean contains(String source, String innerId) {
+        return contains(SeenSet.hash(source, innerId));
+    }
+
+    @Override
+    public synchronized long size() {
+        return size;
+    }
+
+    synchronized boolean add(long hash) {
+        if (hash == 0) {
+            hash = 1;
+        }
+        if (size >= (mask + 1) * MAX_LOAD) {
+            grow();
+        }
+        int slot = (int) hash & mask;
+        while (true) {
+            long current = table.get(slot);
+            if (current == hash) {
+                return false;
+            }
+            if (current == 0) {
+                table.put(slot, hash);
+                size++;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    synchronized boolean contains(long hash) {
+        if (hash == 0) {
+            hash = 1;
+        }
+        int slot = (int) hash & mask;
+        while (true) {
+            long current = table.get(slot);
+            if (current == hash) {
+                return true;
+            }
+            if (current == 0) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        LongBuffer old = table;
+        int oldCapacity = mask + 1;
+        if (oldCapacity >= maxCapacity()) {
+            // Keep filling the largest table, leaving a free slot so probing terminates
+            if (size >= mask) {
+                throw new IllegalStateException("SeenSet is full at " + size + " IDs");
+            }
+            return;
+        }
+        allocate(oldCapacity * 2);
+        for (int i = 0; i < oldCapacity; i++) {
+            long hash = old.get(i);
+            if (hash != 0) {
+                int slot = (int) hash & mask;
+                while (table.get(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table.put(slot, hash);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        // Direct buffers are zeroed on allocation, like long[]; the old one is freed when collected
+        table = offHeap
+                ? ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.wrap(new long[capacity]);
+        mask = capacity - 1;
+    }
+
+    private int maxCapacity() {
+        return offHeap ? MAX_OFF_HEAP_CAPACITY : MAX_CAPACITY;
+    }
+}
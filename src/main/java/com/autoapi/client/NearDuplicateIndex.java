@@ -0,0 +1,483 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.OfferData;
+import com.autoapi.client.model.OfferItem;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental near-duplicate index for listings, across sources.
+ * Each offer is reduced to a set of normalized features (mark, model, year, mileage band,
+ * price band) and a MinHash signature of that set. Signatures are split into bands and
+ * bucketed (locality-sensitive hashing), so candidates for a new offer are found by looking
+ * up its bands instead of comparing it with every stored offer.
+ *
+ * <p>Image file names are kept apart, capped at {@value #MAX_IMAGES} per offer: sources host
+ * photos under their own names, so as features they would outnumber the attributes and pull
+ * real duplicates below the threshold. Shared images only raise a candidate's similarity.
+ *
+ * <p>Prices are banded on a log scale and compared as-is, so they only help matching
+ * between sources that quote the same currency; mark, model, year and mileage carry the
+ * match otherwise.
+ */
+public class NearDuplicateIndex {
+
+    /**
+     * A candidate duplicate.
+     */
+    public static final class Match {
+
+        private final String source;
+        private final String innerId;
+        private final double similarity;
+        private final double imageSimilarity;
+
+        Match(String source, String innerId, double similarity, double imageSimilarity) {
+            this.source = source;
+            this.innerId = innerId;
+            this.similarity = similarity;
+            this.imageSimilarity = imageSimilarity;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getInnerId() {
+            return innerId;
+        }
+
+        /**
+         * Estimated Jaccard similarity of the two offers' features, from 0 to 1, raised by
+         * the share of image file names they have in common.
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        /** Jaccard similarity of the two offers' image file names, from 0 to 1; 0 if either has none. */
+        public double getImageSimilarity() {
+            return imageSimilarity;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s/%s (%.2f)", source, innerId, similarity);
+        }
+    }
+
+    private static final class Entry {
+        final String source;
+        final String innerId;
+        final long[] signature;
+        final long[] bandKeys;
+        final long[] images;
+
+        Entry(String source, String innerId, long[] signature, long[] bandKeys, long[] images) {
+            this.source = source;
+            this.innerId = innerId;
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+            this.images = images;
+        }
+    }
+
+    /** Ratio between consecutive price bands. */
+    private static final double PRICE_BAND = Math.log(1.1);
+    /** Width of a mileage band, in km. */
+    private static final long KM_BAND = 10_000;
+    /** Image file names kept per offer. */
+    private static final int MAX_IMAGES = 16;
+    /** Share of the gap to 1 that identical image sets close. */
+    private static final double IMAGE_WEIGHT = 0.5;
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+    private final List<Map<Long, Set<String>>> buckets;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private double threshold = 0.5;
+
+    /**
+     * Creates an index with 16 bands of 4 rows (64 hash functions), which finds pairs with
+     * a similarity above about 0.5 with high probability.
+     */
+    public NearDuplicateIndex() {
+        this(16, 4);
+    }
+
+    /**
+     * Creates an index with a custom banding. More rows per band make candidates stricter;
+     * more bands make them looser.
+     *
+     * @param bands number of bands
+     * @param rows  MinHash values per band
+     */
+    public NearDuplicateIndex(int bands, int rows) {
+        if (bands < 1 || rows < 1) {
+            throw new IllegalArgumentException("bands and rows must be positive");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < seeds.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(seed);
+        }
+        this.buckets = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /** Minimum estimated similarity for a candidate to be returned (default: 0.5). */
+    public NearDuplicateIndex threshold(double threshold) {
+        this.threshold = threshold;
+        return this;
+    }
+
+    /**
+     * Adds or replaces an offer from a search result.
+     */
+    public void put(String source, OfferItem item) {
+        put(source, item.getInnerId(), item.getData());
+    }
+
+    /**
+     * Adds or replaces an offer from its raw data JSON.
+     */
+    public void put(String source, String innerId, JsonElement data) {
+        Set<String> features = features(data);
+        if (!features.isEmpty()) {
+            put(source, innerId, features, imageHashes(images(data)));
+        } else {
+            remove(source, innerId);
+        }
+    }
+
+    /**
+     * Adds or replaces a parsed offer.
+     */
+    public void put(String source, OfferData data) {
+        Set<String> features = features(data.getMark(), data.getModel(), data.getYear(), data.getKmAge(),
+                data.getPrice());
+        if (!features.isEmpty()) {
+            put(source, data.getInnerId(), features, imageHashes(data.getImages()));
+        } else {
+            remove(source, data.getInnerId());
+        }
+    }
+
+    /**
+     * Applies a change from the changes feed: added and changed offers are indexed,
+     * removed offers are dropped.
+     */
+    public void accept(String source, ChangeItem item) {
+        if ("removed".equals(item.getChangeType())) {
+            remove(source, item.getInnerId());
+        } else {
+            put(source, item.getInnerId(), item.getData());
+        }
+    }
+
+    /**
+     * Removes an offer.
+     */
+    public synchronized void remove(String source, String innerId) {
+        Entry entry = entries.remove(key(source, innerId));
+        if (entry != null) {
+            unbucket(entry);
+        }
+    }
+
+    /**
+     * Returns indexed offers that are likely duplicates of an indexed offer, excluding itself.
+     *
+     * @return matches above the threshold, most similar first and then by image similarity;
+     *         empty if the offer is not indexed
+     */
+    public synchronized List<Match> findMatches(String source, String innerId) {
+        Entry entry = entries.get(key(source, innerId));
+        return entry != null
+                ? candidates(entry.signature, entry.bandKeys, entry.images, key(source, innerId))
+                : new ArrayList<>();
+    }
+
+    /**
+     * Returns indexed offers that are likely duplicates of an offer that does not need to be indexed.
+     *
+     * @param data raw data JSON of the offer
+     * @return matches above the threshold, most similar first and then by image similarity
+     */
+    public synchronized List<Match> findMatches(JsonElement data) {
+        Set<String> features = features(data);
+        if (features.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long[] signature = signature(features);
+        return candidates(signature, bandKeys(signature), imageHashes(images(data)), null);
+    }
+
+    /**
+     * Number of indexed offers.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void put(String source, String innerId, Set<String> features, long[] images) {
+        String key = key(source, innerId);
+        Entry old = entries.get(key);
+        if (old != null) {
+            unbucket(old);
+        }
+        long[] signature = signature(features);
+        Entry entry = new Entry(source, innerId, signature, bandKeys(signature), images);
+        entries.put(key, entry);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(entry.bandKeys[band], k -> new HashSet<>(2)).add(key);
+        }
+    }
+
+    private void unbucket(Entry entry) {
+        String key = key(entry.source, entry.innerId);
+        for (int band = 0; band < bands; band++) {
+            Map<Long, Set<String>> bucketMap = buckets.get(band);
+            Set<String> bucket = bucketMap.get(entry.bandKeys[band]);
+            if (bucket != null && bucket.remove(key) && bucket.isEmpty()) {
+                bucketMap.remove(entry.bandKeys[band]);
+            }
+        }
+    }
+
+    private List<Match> candidates(long[] signature, long[] bandKeys, long[] images, String self) {
+        Set<String> seen = new HashSet<>();
+        List<Match> matches = new ArrayList<>();
+        for (int band = 0; band < bands; band++) {
+            Set<String> bucket = buckets.get(band).get(bandKeys[band]);
+            if (bucket == null) {
+                continue;
+            }
+            for (String key : bucket) {
+                if (key.equals(self) || !seen.add(key)) {
+                    continue;
+                }
+                Entry other = entries.get(key);
+                double similarity = similarity(signature, other.signature);
+                double imageSimilarity = overlap(images, other.images);
+                similarity += IMAGE_WEIGHT * imageSimilarity * (1 - similarity);
+                if (similarity >= threshold) {
+                    matches.add(new Match(other.source, other.innerId, similarity, imageSimilarity));
+                }
+            }
+        }
+        matches.sort((a, b) -> a.similarity != b.similarity
+                ? Double.compare(b.similarity, a.similarity)
+                : Double.compare(b.imageSimilarity, a.imageSimilarity));
+        return matches;
+    }
+
+    private long[] signature(Set<String> features) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (String feature : features) {
+            long hash = hash(feature);
+            for (int i = 0; i < seeds.length; i++) {
+                long value = mix(hash ^ seeds[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /** Jaccard similarity of two sorted image hash sets; 0 if either is empty. */
+    private static double overlap(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return 0;
+        }
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    private static Set<String> features(JsonElement data) {
+        if (data == null || !data.isJsonObject()) {
+            return new HashSet<>();
+        }
+        JsonObject object = data.getAsJsonObject();
+        return features(text(object, "mark"), text(object, "model"), text(object, "year"),
+                text(object, "km_age"), text(object, "price"));
+    }
+
+    private static List<String> images(JsonElement data) {
+        List<String> images = new ArrayList<>();
+        JsonElement imageArray = data != null && data.isJsonObject() ? data.getAsJsonObject().get("images") : null;
+        if (imageArray != null && imageArray.isJsonArray()) {
+            for (JsonElement image : (JsonArray) imageArray) {
+                if (image.isJsonPrimitive()) {
+                    images.add(image.getAsString());
+                }
+            }
+        }
+        return images;
+    }
+
+    /** Sorted hashes of the first {@value #MAX_IMAGES} distinct image file names. */
+    private static long[] imageHashes(List<String> images) {
+        if (images == null) {
+            return new long[0];
+        }
+        Set<Long> hashes = new LinkedHashSet<>();
+        for (String image : images) {
+            if (hashes.size() == MAX_IMAGES) {
+                break;
+            }
+            String name = image != null ? imageName(image) : "";
+            if (!name.isEmpty()) {
+                hashes.add(hash(name));
+            }
+        }
+        long[] sorted = new long[hashes.size()];
+        int i = 0;
+        for (long hash : hashes) {
+            sorted[i++] = hash;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Mileage and price are emitted on two overlapping band grids, so values just either side
+     * of a band boundary still share a feature.
+     */
+    private static Set<String> features(String mark, String model, String year, String kmAge,
+                                        String price) {
+        Set<String> features = new LinkedHashSet<>();
+        String normalizedMark = normalize(mark);
+        String normalizedModel = normalize(model);
+        if (normalizedMark.isEmpty() || normalizedModel.isEmpty()) {
+            // Without at least mark and model, anything else matches far too broadly
+            return features;
+        }
+        features.add("mark:" + normalizedMark);
+        features.add("model:" + normalizedMark + '/' + normalizedModel);
+        String normalizedYear = normalize(year);
+        if (!normalizedYear.isEmpty()) {
+            features.add("year:" + normalizedYear);
+        }
+        double km = OfferDiff.number(kmAge);
+        if (!Double.isNaN(km)) {
+            features.add("km:" + (long) Math.floor(km / KM_BAND));
+            features.add("km+:" + (long) Math.floor(km / KM_BAND + 0.5));
+        }
+        double amount = OfferDiff.number(price);
+        if (!Double.isNaN(amount) && amount > 0) {
+            double band = Math.log(amount) / PRICE_BAND;
+            features.add("price:" + (long) Math.floor(band));
+            features.add("price+:" + (long) Math.floor(band + 0.5));
+        }
+        return features;
+    }
+
+    /** Lower-cased letters and digits only, so "Mercedes-Benz" and "mercedes benz" agree. */
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out.append(Character.toLowerCase(c));
+            }
+        }
+        return out.toString();
+    }
+
+    /** File name of an image URL without query string or extension. */
+    private static String imageName(String url) {
+        int end = url.length();
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            end = query;
+        }
+        int start = url.lastIndexOf('/', end - 1) + 1;
+        String name = url.substring(start, end);
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name).toLowerCase(Locale.ROOT);
+    }
+
+    private static String text(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        return value == null || !value.isJsonPrimitive() ? null : value.getAsString();
+    }
+
+    private static String key(String source, String innerId) {
+        return source + '/' + innerId;
+    }
+
+    /** 64-bit FNV-1a over the UTF-8 bytes. */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,162 @@
+package com.autoapi.client;
+
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.OffersResponse;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batching front end for {@link AutoApiClient#getOffer(String, String)}.
+ * Lookups made within a short window are grouped per source, duplicate inner_ids
+ * are coalesced into one request, and the batch is dispatched with bounded parallelism.
+ */
+public class OfferBatcher implements AutoCloseable {
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private final AutoApiClient client;
+    private final Duration window;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService dispatcher;
+    private final Map<String, Map<String, CompletableFuture<OffersResponse>>> pending = new HashMap<>();
+    private boolean closed;
+
+    /**
+     * Creates a batcher with a 5 ms window, batches of up to 50 lookups and 8 concurrent requests.
+     *
+     * @param client client used to fetch offers
+     */
+    public OfferBatcher(AutoApiClient client) {
+        this(client, Duration.ofMillis(5), 50, 8);
+    }
+
+    /**
+     * Creates a batcher with custom settings.
+     *
+     * @param client       client used to fetch offers
+     * @param window       how long the first lookup of a batch waits for others to join
+     * @param maxBatchSize batch size that triggers dispatch before the window elapses
+     * @param parallelism  maximum number of concurrent requests
+     */
+    public OfferBatcher(AutoApiClient client, Duration window, int maxBatchSize, int parallelism) {
+        if (maxBatchSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("maxBatchSize and parallelism must be positive");
+        }
+        this.client = client;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                AutoApiClient.daemonThreads("auto-api-batcher"));
+        this.dispatcher = Executors.newFixedThreadPool(parallelism,
+                AutoApiClient.daemonThreads("auto-api-batcher-worker"));
+    }
+
+    /**
+     * Queues a lookup of a single offer.
+     *
+     * @param source  source platform name
+     * @param innerId offer inner ID
+     * @return future completed with the offer response or the API exception
+     */
+    public CompletableFuture<OffersResponse> submit(String source, String innerId) {
+        Map<String, CompletableFuture<OffersResponse>> batch;
+        CompletableFuture<OffersResponse> future;
+        boolean full;
+
+        synchronized (pending) {
+            if (closed) {
+                throw new IllegalStateException("OfferBatcher is closed");
+            }
+            batch = pending.get(source);
+            if (batch == null) {
+                batch = new LinkedHashMap<>();
+                pending.put(source, batch);
+                Map<String, CompletableFuture<OffersResponse>> scheduled = batch;
+                scheduler.schedule(() -> flush(source, scheduled), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            future = batch.computeIfAbsent(innerId, id -> new CompletableFuture<>());
+            full = batch.size() >= maxBatchSize;
+        }
+
+        if (full) {
+            flush(source, batch);
+        }
+        return future;
+    }
+
+    /**
+     * Returns a single offer, waiting for the batch it joins to be dispatched.
+     *
+     * @param source  source platform name
+     * @param innerId offer inner ID
+     * @return offers response with single result
+     */
+    public OffersResponse getOffer(String source, String innerId) {
+        try {
+            return submit(source, innerId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ApiException(0, "Request failed: " + e.getCause(), "");
+        }
+    }
+
+    /**
+     * Dispatches all queued lookups and stops accepting new ones.
+     * Lookups already dispatched still complete.
+     */
+    @Override
+    public void close() {
+        synchronized (pending) {
+            closed = true;
+        }
+        // Let a timed flush that already took its batch hand it to the dispatcher first
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Map<String, Map<String, CompletableFuture<OffersResponse>>> remaining;
+        synchronized (pending) {
+            remaining = new HashMap<>(pending);
+        }
+        remaining.forEach(this::flush);
+        dispatcher.shutdown();
+    }
+
+    private void flush(String source, Map<String, CompletableFuture<OffersResponse>> batch) {
+        synchronized (pending) {
+            // The batch may already have been flushed by size or by close()
+            if (!pending.remove(source, batch)) {
+                return;
+            }
+        }
+        batch.forEach((innerId, future) -> {
+            try {
+                dispatcher.execute(() -> {
+                    try {
+                        future.complete(client.getOffer(source, innerId));
+                    } catch (RuntimeException e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // A batch flushed by size while close() shut the dispatcher down
+                future.completeExceptionally(new ApiException(0, "OfferBatcher is closed", ""));
+            }
+        });
+    }
+}
@@ -0,0 +1,238 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.OfferData;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Field-level diff between two versions of an offer.
+ * Compares either parsed {@link OfferData} or the raw {@code data} JSON of an offer
+ * and returns only the fields that moved. Unchanged offers return a shared empty list.
+ */
+public final class OfferDiff {
+
+    /** Longest digit string parsed exactly; longer ones could overflow a long. */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * Kind of a field delta.
+     */
+    public enum Kind {
+        PRICE_DROP,
+        PRICE_RISE,
+        MILEAGE_UPDATE,
+        IMAGES_CHANGED,
+        FIELD_CHANGED
+    }
+
+    /**
+     * A single changed field. Values are the text form of the field, or null if absent.
+     */
+    public static final class Delta {
+
+        private final String field;
+        private final Kind kind;
+        private final String oldValue;
+        private final String newValue;
+
+        Delta(String field, Kind kind, String oldValue, String newValue) {
+            this.field = field;
+            this.kind = kind;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /** JSON field name (snake_case). */
+        public String getField() {
+            return field;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getOldValue() {
+            return oldValue;
+        }
+
+        public String getNewValue() {
+            return newValue;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + field + ": " + oldValue + " -> " + newValue;
+        }
+    }
+
+    private OfferDiff() {
+    }
+
+    /**
+     * Compares two parsed offers field by field.
+     *
+     * @param before stored version
+     * @param after  new version
+     * @return changed fields, price and mileage first
+     */
+    public static List<Delta> diff(OfferData before, OfferData after) {
+        List<Delta> out = null;
+
+        // Hot fields first: they move most often and need no further checks
+        out = string(out, "price", before.getPrice(), after.getPrice());
+        out = string(out, "km_age", before.getKmAge(), after.getKmAge());
+        if (!Objects.equals(before.getImages(), after.getImages())) {
+            out = add(out, new Delta("images", Kind.IMAGES_CHANGED,
+                    Objects.toString(before.getImages(), null), Objects.toString(after.getImages(), null)));
+        }
+
+        out = string(out, "url", before.getUrl(), after.getUrl());
+        out = string(out, "mark", before.getMark(), after.getMark());
+        out = string(out, "model", before.getModel(), after.getModel());
+        out = string(out, "generation", before.getGeneration(), after.getGeneration());
+        out = string(out, "configuration", before.getConfiguration(), after.getConfiguration());
+        out = string(out, "complectation", before.getComplectation(), after.getComplectation());
+        out = string(out, "year", before.getYear(), after.getYear());
+        out = string(out, "color", before.getColor(), after.getColor());
+        out = string(out, "engine_type", before.getEngineType(), after.getEngineType());
+        out = string(out, "transmission_type", before.getTransmissionType(), after.getTransmissionType());
+        out = string(out, "body_type", before.getBodyType(), after.getBodyType());
+        out = string(out, "address", before.getAddress(), after.getAddress());
+        out = string(out, "seller_type", before.getSellerType(), after.getSellerType());
+        if (before.isDealer() != after.isDealer()) {
+            out = add(out, new Delta("is_dealer", Kind.FIELD_CHANGED,
+                    String.valueOf(before.isDealer()), String.valueOf(after.isDealer())));
+        }
+        out = string(out, "displacement", before.getDisplacement(), after.getDisplacement());
+        out = string(out, "offer_created", before.getOfferCreated(), after.getOfferCreated());
+
+        return out != null ? out : Collections.emptyList();
+    }
+
+    /**
+     * Compares two raw {@code data} objects, including source-specific fields.
+     *
+     * @param before stored version
+     * @param after  new version
+     * @return changed fields in the order they appear in before, then fields only in after
+     */
+    public static List<Delta> diff(JsonElement before, JsonElement after) {
+        if (before == null || !before.isJsonObject() || after == null || !after.isJsonObject()) {
+            if (Objects.equals(before, after)) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(new Delta("", Kind.FIELD_CHANGED, text(before), text(after)));
+        }
+
+        JsonObject oldObj = before.getAsJsonObject();
+        JsonObject newObj = after.getAsJsonObject();
+        List<Delta> out = null;
+
+        for (Map.Entry<String, JsonElement> entry : oldObj.entrySet()) {
+            JsonElement newValue = newObj.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), newValue)) {
+                out = add(out, delta(entry.getKey(), text(entry.getValue()), text(newValue)));
+            }
+        }
+        for (Map.Entry<String, JsonElement> entry : newObj.entrySet()) {
+            if (!oldObj.has(entry.getKey())) {
+                out = add(out, delta(entry.getKey(), null, text(entry.getValue())));
+            }
+        }
+
+        return out != null ? out : Collections.emptyList();
+    }
+
+    private static List<Delta> string(List<Delta> out, String field, String before, String after) {
+        if (Objects.equals(before, after)) {
+            return out;
+        }
+        return add(out, delta(field, before, after));
+    }
+
+    private static Delta delta(String field, String before, String after) {
+        switch (field) {
+            case "price":
+                double oldPrice = number(before);
+                double newPrice = number(after);
+                if (!Double.isNaN(oldPrice) && !Double.isNaN(newPrice)) {
+                    if (newPrice == oldPrice) {
+                        // Same amount written differently, e.g. "25000" and "25000.0"
+                        return null;
+                    }
+                    return new Delta(field, newPrice < oldPrice ? Kind.PRICE_DROP : Kind.PRICE_RISE, before, after);
+                }
+                return new Delta(field, Kind.FIELD_CHANGED, before, after);
+            case "km_age":
+                return new Delta(field, Kind.MILEAGE_UPDATE, before, after);
+            case "images":
+                return new Delta(field, Kind.IMAGES_CHANGED, before, after);
+            default:
+                return new Delta(field, Kind.FIELD_CHANGED, before, after);
+        }
+    }
+
+    private static List<Delta> add(List<Delta> out, Delta delta) {
+        if (delta == null) {
+            return out;
+        }
+        if (out == null) {
+            out = new ArrayList<>(4);
+        }
+        out.add(delta);
+        return out;
+    }
+
+    private static String text(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        return value.isJsonPrimitive() ? value.getAsString() : value.toString();
+    }
+
+    /**
+     * Parses a plain decimal number, optionally negative, without allocating; returns NaN for
+     * anything else, including values without digits and values with more digits than a long
+     * holds exactly.
+     */
+    static double number(String value) {
+        if (value == null || value.isEmpty()) {
+            return Double.NaN;
+        }
+        long whole = 0;
+        long fraction = 0;
+        long scale = 1;
+        boolean dot = false;
+        int digits = 0;
+        boolean negative = value.charAt(0) == '-';
+        for (int i = negative ? 1 : 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.' && !dot) {
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return Double.NaN;
+                }
+                if (dot) {
+                    fraction = fraction * 10 + (c - '0');
+                    scale *= 10;
+                } else {
+                    whole = whole * 10 + (c - '0');
+                }
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double number = whole + (double) fraction / scale;
+        return negative ? -number : number;
+    }
+}
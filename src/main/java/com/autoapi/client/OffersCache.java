@@ -0,0 +1,322 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.OfferItem;
+import com.autoapi.client.model.OffersParams;
+import com.autoapi.client.model.OffersResponse;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Cache of {@code getOffers} pages for repeated searches. Entries are keyed by source and the
+ * canonical query (keys sorted, text values trimmed and lower-cased, blank values and lower bounds
+ * of zero dropped; numeric params are ints and so already have one form), evicted least recently
+ * used beyond {@code maxEntries}, and expire after {@code ttl}.
+ *
+ * <p>Feed changes to {@link #invalidate(String, Collection)} to drop pages they make stale:
+ * pages listing a changed or removed offer, and every page of a query an added or changed
+ * offer matches. A filter only rules an offer out when its data has the field and the value
+ * differs, so sources with other field names get more invalidations, not stale pages. A removed
+ * offer that is not on a cached page can still shift later pages of its query until they expire.
+ * Pages are indexed by the offers they list and by their query, so an invalidation looks up
+ * listed offers directly and checks each distinct query once rather than every cached page.
+ *
+ * <p>Cached responses are shared between callers and must not be modified. Thread-safe.
+ */
+public class OffersCache {
+
+    private final AutoApiClient client;
+    private int maxEntries = 1000;
+    private long ttlNanos = Duration.ofMinutes(1).toNanos();
+    private final Map<String, CachedPage> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPage> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            unindex(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+    };
+    /** Source, then inner_id, to the keys of the cached pages listing that offer. */
+    private final Map<String, Map<String, Set<String>>> keysByOffer = new HashMap<>();
+    /** Source, then canonical query without its page, to the keys of the cached pages of that query. */
+    private final Map<String, Map<Map<String, String>, Set<String>>> keysByQuery = new HashMap<>();
+    /** Bumped by every invalidation, so a page fetched meanwhile is not cached. */
+    private long epoch;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache of up to 1000 pages that expire after one minute.
+     *
+     * @param client client used on a miss
+     */
+    public OffersCache(AutoApiClient client) {
+        this.client = client;
+    }
+
+    /** Maximum number of cached pages; the least recently used is evicted beyond it. */
+    public OffersCache maxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        synchronized (this) {
+            this.maxEntries = maxEntries;
+        }
+        return this;
+    }
+
+    /** Time a page stays cached after it was fetched. */
+    public OffersCache ttl(Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        synchronized (this) {
+            this.ttlNanos = ttl.toNanos();
+        }
+        return this;
+    }
+
+    /**
+     * Returns a page of offers, from the cache if an unexpired copy exists.
+     *
+     * @param source source platform name
+     * @param params query parameters (page, brand, model, etc.)
+     * @return offers response; shared, do not modify
+     */
+    public OffersResponse getOffers(String source, OffersParams params) {
+        OffersParams query = params != null ? params : new OffersParams();
+        Map<String, String> canonical = canonical(query);
+        String key = key(source, canonical);
+        long startEpoch;
+        synchronized (this) {
+            CachedPage entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.expiresAt < 0) {
+                hits++;
+                return entry.response;
+            }
+            if (entry != null) {
+                drop(key);
+            }
+            misses++;
+            startEpoch = epoch;
+        }
+
+        OffersResponse response = client.getOffers(source, query);
+
+        synchronized (this) {
+            if (epoch == startEpoch) {
+                drop(key);
+                CachedPage entry = new CachedPage(source, canonical, response, System.nanoTime() + ttlNanos);
+                entries.put(key, entry);
+                index(key, entry);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Drops cached pages of a source that the changes may have made stale.
+     *
+     * @param source  source the changes came from
+     * @param changes changes from the feed, e.g. one {@code getChanges} batch
+     * @return number of pages dropped
+     */
+    public synchronized int invalidate(String source, Collection<ChangeItem> changes) {
+        epoch++;
+        Set<String> stale = new HashSet<>();
+        Map<String, Set<String>> offers = keysByOffer.getOrDefault(source, Map.of());
+        for (ChangeItem change : changes) {
+            stale.addAll(offers.getOrDefault(change.getInnerId(), Set.of()));
+        }
+        Map<Map<String, String>, Set<String>> queries = keysByQuery.getOrDefault(source, Map.of());
+        for (Map.Entry<Map<String, String>, Set<String>> query : queries.entrySet()) {
+            for (ChangeItem change : changes) {
+                if (!"removed".equals(change.getChangeType()) && matches(query.getKey(), change.getData())) {
+                    stale.addAll(query.getValue());
+                    break;
+                }
+            }
+        }
+        for (String key : stale) {
+            drop(key);
+        }
+        return stale.size();
+    }
+
+    /**
+     * Drops every cached page.
+     */
+    public synchronized void invalidateAll() {
+        epoch++;
+        entries.clear();
+        keysByOffer.clear();
+        keysByQuery.clear();
+    }
+
+    /** Number of cached pages, including expired ones not yet dropped. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Number of calls served from the cache. */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** Number of calls that went to the API. */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Query params with sorted keys, trimmed and lower-cased values, and blank values and
+     * lower bounds of zero or less dropped, since no price, year or mileage is below zero.
+     */
+    static Map<String, String> canonical(OffersParams params) {
+        Map<String, String> canonical = new TreeMap<>();
+        params.toQueryParams().forEach((name, value) -> {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            if (normalized.isEmpty() || name.endsWith("_from") && Integer.parseInt(normalized) <= 0) {
+                return;
+            }
+            canonical.put(name, normalized);
+        });
+        return canonical;
+    }
+
+    private void drop(String key) {
+        CachedPage entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    private void index(String key, CachedPage entry) {
+        Map<String, Set<String>> offers = keysByOffer.computeIfAbsent(entry.source, s -> new HashMap<>());
+        for (String innerId : entry.innerIds) {
+            offers.computeIfAbsent(innerId, id -> new HashSet<>()).add(key);
+        }
+        keysByQuery.computeIfAbsent(entry.source, s -> new HashMap<>())
+                .computeIfAbsent(entry.filters, q -> new HashSet<>()).add(key);
+    }
+
+    private void unindex(String key, CachedPage entry) {
+        Map<String, Set<String>> offers = keysByOffer.get(entry.source);
+        for (String innerId : entry.innerIds) {
+            remove(offers, innerId, key);
+        }
+        if (offers.isEmpty()) {
+            keysByOffer.remove(entry.source);
+        }
+        Map<Map<String, String>, Set<String>> queries = keysByQuery.get(entry.source);
+        remove(queries, entry.filters, key);
+        if (queries.isEmpty()) {
+            keysByQuery.remove(entry.source);
+        }
+    }
+
+    private static <K> void remove(Map<K, Set<String>> index, K indexKey, String key) {
+        Set<String> keys = index.get(indexKey);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(indexKey);
+        }
+    }
+
+    private static String key(String source, Map<String, String> canonical) {
+        StringBuilder key = new StringBuilder(source);
+        canonical.forEach((name, value) -> key.append('\0').append(name).append('=').append(value));
+        return key.toString();
+    }
+
+    /**
+     * Whether offer data may match the query's filters. Missing or unparseable fields match.
+     */
+    static boolean matches(Map<String, String> query, JsonElement data) {
+        if (data == null || !data.isJsonObject()) {
+            return true;
+        }
+        JsonObject object = data.getAsJsonObject();
+        for (Map.Entry<String, String> filter : query.entrySet()) {
+            String value = filter.getValue();
+            boolean match;
+            switch (filter.getKey()) {
+                case "brand": match = same(value, text(object, "mark")); break;
+                case "transmission": match = same(value, text(object, "transmission_type")); break;
+                case "model":
+                case "configuration":
+                case "complectation":
+                case "color":
+                case "body_type":
+                case "engine_type":
+                    match = same(value, text(object, filter.getKey()));
+                    break;
+                case "year_from": match = atLeast(text(object, "year"), value); break;
+                case "year_to": match = atMost(text(object, "year"), value); break;
+                case "mileage_from": match = atLeast(text(object, "km_age"), value); break;
+                case "mileage_to": match = atMost(text(object, "km_age"), value); break;
+                case "price_from": match = atLeast(text(object, "price"), value); break;
+                case "price_to": match = atMost(text(object, "price"), value); break;
+                default: match = true;
+            }
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean same(String expected, String actual) {
+        return actual == null || actual.trim().equalsIgnoreCase(expected);
+    }
+
+    private static boolean atLeast(String actual, String bound) {
+        double value = OfferDiff.number(actual);
+        return Double.isNaN(value) || value >= Double.parseDouble(bound);
+    }
+
+    private static boolean atMost(String actual, String bound) {
+        double value = OfferDiff.number(actual);
+        return Double.isNaN(value) || value <= Double.parseDouble(bound);
+    }
+
+    private static String text(JsonObject object, String name) {
+        JsonElement value = object.get(name);
+        return value == null || !value.isJsonPrimitive() ? null : value.getAsString();
+    }
+
+    private static final class CachedPage {
+
+        final String source;
+        /** Canonical query without its page, shared by every page of the query. */
+        final Map<String, String> filters;
+        final Set<String> innerIds = new HashSet<>();
+        final OffersResponse response;
+        final long expiresAt;
+
+        CachedPage(String source, Map<String, String> query, OffersResponse response, long expiresAt) {
+            this.source = source;
+            Map<String, String> filters = new TreeMap<>(query);
+            filters.remove("page");
+            this.filters = filters;
+            this.response = response;
+            this.expiresAt = expiresAt;
+            if (response.getResult() != null) {
+                for (OfferItem item : response.getResult()) {
+                    innerIds.add(item.getInnerId());
+                }
+            }
+        }
+    }
+}
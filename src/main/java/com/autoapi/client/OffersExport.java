@@ -0,0 +1,292 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.Meta;
+import com.autoapi.client.model.ModelTypeAdapterFactory;
+import com.autoapi.client.model.OfferItem;
+import com.autoapi.client.model.OffersParams;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every offer matching a query to a file, as newline-delimited JSON or CSV.
+ * Pages are fetched concurrently, each parsed straight from the response body and encoded
+ * by the worker that fetched it; the encoded pages are written in page order. The first
+ * page is fetched alone and the window widens to {@code parallelism} pages once the API
+ * reports more, so a small export makes no speculative calls; memory stays the same however
+ * many offers the query matches.
+ */
+public class OffersExport {
+
+    /**
+     * Output format.
+     */
+    public enum Format {
+        /** One JSON object per line, as returned by the API. */
+        NDJSON,
+        /** RFC 4180 CSV with a header row and the configured columns. */
+        CSV
+    }
+
+    private static final List<String> DEFAULT_COLUMNS =
+            List.of("inner_id", "mark", "model", "year", "price", "km_age", "url");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AutoApiClient client;
+    private final String source;
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .disableHtmlEscaping()
+            .create();
+    private Format format = Format.NDJSON;
+    private List<String> columns = DEFAULT_COLUMNS;
+    private boolean gzip;
+    private int parallelism = 4;
+
+    /**
+     * Creates an NDJSON export fetching 4 pages at a time.
+     *
+     * @param client client used to fetch offers
+     * @param source source platform name
+     */
+    public OffersExport(AutoApiClient client, String source) {
+        this.client = client;
+        this.source = source;
+    }
+
+    /** Output format (default: NDJSON). */
+    public OffersExport format(Format format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * CSV columns, in order (default: inner_id, mark, model, year, price, km_age, url).
+     * {@code id}, {@code inner_id}, {@code change_type} and {@code created_at} come from the
+     * offer itself, any other name from its data; nested values are written as JSON and
+     * missing ones as empty fields.
+     */
+    public OffersExport columns(String... columns) {
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("columns must not be empty");
+        }
+        this.columns = List.copyOf(Arrays.asList(columns));
+        return this;
+    }
+
+    /** Compresses the output with gzip. */
+    public OffersExport gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    /** Number of pages fetched concurrently ahead of the writer (default: 4). */
+    public OffersExport parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Exports all offers matching the query to a file. Output goes to a {@code .part} file
+     * next to it, which replaces the file once the export is complete and is deleted if it fails.
+     *
+     * @param params query to export; its page is ignored
+     * @param file   output file
+     * @return number of offers written
+     */
+    public long export(OffersParams params, Path file) {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        boolean done = false;
+        try {
+            long count;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                count = export(params, channel);
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (!done) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException ignored) {
+                    // Best effort; the original failure is more useful
+                }
+            }
+        }
+    }
+
+    /**
+     * Exports all offers matching the query to a channel, which is left open.
+     *
+     * @param params  query to export; its page is ignored
+     * @param channel output channel
+     * @return number of offers written
+     */
+    public long export(OffersParams params, WritableByteChannel channel) {
+        OffersParams query = params != null ? params : new OffersParams();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, AutoApiClient.daemonThreads("auto-api-export"));
+        try {
+            OutputStream out = gzip
+                    ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)
+                    : new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            if (format == Format.CSV) {
+                out.write(csvHeader());
+            }
+
+            AtomicLong count = new AtomicLong();
+            new PagePrefetcher<>(executor, parallelism, page -> fetch(query, page)).forEach(fetched -> {
+                if (fetched.offers == 0) {
+                    return 0;
+                }
+                try {
+                    out.write(fetched.bytes(), 0, fetched.size());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count.addAndGet(fetched.offers);
+                return fetched.nextPage;
+            });
+
+            // Flush and finish without closing the caller's channel
+            if (out instanceof GZIPOutputStream) {
+                ((GZIPOutputStream) out).finish();
+            }
+            out.flush();
+            return count.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Page fetch(OffersParams query, int page) throws IOException {
+        Page encoded = new Page();
+        Writer writer = new OutputStreamWriter(encoded, StandardCharsets.UTF_8);
+        Meta meta = client.streamOffers(source, query.copy().page(page), item -> {
+            try {
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, item);
+                } else {
+                    gson.toJson(item, OfferItem.class, writer);
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            encoded.offers++;
+        });
+        writer.flush();
+        encoded.nextPage = meta != null ? meta.getNextPage() : 0;
+        return encoded;
+    }
+
+    private byte[] csvHeader() {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                header.append(',');
+            }
+            appendCsv(header, columns.get(i));
+        }
+        return header.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void writeCsvRow(Writer writer, OfferItem item) throws IOException {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            appendCsv(row, field(item, columns.get(i)));
+        }
+        writer.append(row).append("\r\n");
+    }
+
+    private static String field(OfferItem item, String column) {
+        switch (column) {
+            case "id": return String.valueOf(item.getId());
+            case "inner_id": return item.getInnerId();
+            case "change_type": return item.getChangeType();
+            case "created_at": return item.getCreatedAt();
+            default:
+                JsonElement data = item.getData();
+                if (data == null || !data.isJsonObject()) {
+                    return null;
+                }
+                JsonElement value = data.getAsJsonObject().get(column);
+                if (value == null || value.isJsonNull()) {
+                    return null;
+                }
+                return value.isJsonPrimitive() ? value.getAsString() : value.toString();
+        }
+    }
+
+    private static void appendCsv(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /** One page encoded in the output format; exposes the buffer without copying it. */
+    private static final class Page extends ByteArrayOutputStream {
+
+        int offers;
+        int nextPage;
+
+        Page() {
+            super(16 * 1024);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.OfferItem;
+import com.autoapi.client.model.OffersParams;
+import com.autoapi.client.model.OffersResponse;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Full scan of a broad {@code getOffers} query, split into disjoint partitions.
+ * The query is bisected on its price, year and mileage ranges until each partition
+ * fits in a bounded number of pages; partitions are then paged in parallel and
+ * offers are de-duplicated by inner_id.
+ *
+ * <p>A range the query leaves open stays open in the partitions at either end: the assumed
+ * bounds ({@link #priceRange(int, int)} and friends) only pick split points, so offers beyond
+ * them are still scanned. Offers with no price, year or mileage value at all cannot be selected
+ * by a range filter; {@link #remainderPass(boolean)} picks them up with one more pass over the
+ * original query. Ranges are split in turn, price, then year, then mileage, so no dimension is
+ * narrowed to a single value before the others are used.
+ */
+public class OffersScanner {
+
+    private enum Dimension {
+        PRICE(0, 100_000_000) {
+            @Override Integer from(OffersParams p) { return p.getPriceFrom(); }
+            @Override Integer to(OffersParams p) { return p.getPriceTo(); }
+            @Override void setFrom(OffersParams p, int from) { p.priceFrom(from); }
+            @Override void setTo(OffersParams p, int to) { p.priceTo(to); }
+        },
+        YEAR(1900, LocalDate.now().getYear() + 1) {
+            @Override Integer from(OffersParams p) { return p.getYearFrom(); }
+            @Override Integer to(OffersParams p) { return p.getYearTo(); }
+            @Override void setFrom(OffersParams p, int from) { p.yearFrom(from); }
+            @Override void setTo(OffersParams p, int to) { p.yearTo(to); }
+        },
+        MILEAGE(0, 2_000_000) {
+            @Override Integer from(OffersParams p) { return p.getMileageFrom(); }
+            @Override Integer to(OffersParams p) { return p.getMileageTo(); }
+            @Override void setFrom(OffersParams p, int from) { p.mileageFrom(from); }
+            @Override void setTo(OffersParams p, int to) { p.mileageTo(to); }
+        };
+
+        private final int defaultMin;
+        private final int defaultMax;
+
+        Dimension(int defaultMin, int defaultMax) {
+            this.defaultMin = defaultMin;
+            this.defaultMax = defaultMax;
+        }
+
+        abstract Integer from(OffersParams p);
+
+        abstract Integer to(OffersParams p);
+
+        abstract void setFrom(OffersParams p, int from);
+
+        abstract void setTo(OffersParams p, int to);
+
+        /** Copy of the query with a new range; a null bound keeps the query's own, which may be open. */
+        OffersParams with(OffersParams p, Integer from, Integer to) {
+            OffersParams copy = p.copy();
+            if (from != null) {
+                setFrom(copy, from);
+            }
+            if (to != null) {
+                setTo(copy, to);
+            }
+            return copy;
+        }
+    }
+
+    private final AutoApiClient client;
+    private final String source;
+    private int workers = 4;
+    private int maxPagesPerPartition = 20;
+    private SeenSet seenSet;
+    private final Map<Dimension, int[]> ranges = new EnumMap<>(Dimension.class);
+    private boolean remainderPass;
+
+    /**
+     * Creates a scanner with 4 workers and partitions of up to 20 pages.
+     *
+     * @param client client used to fetch offers
+     * @param source source platform name
+     */
+    public OffersScanner(AutoApiClient client, String source) {
+        this.client = client;
+        this.source = source;
+        for (Dimension dimension : Dimension.values()) {
+            ranges.put(dimension, new int[]{dimension.defaultMin, dimension.defaultMax});
+        }
+    }
+
+    /** Number of partitions probed and paged concurrently. */
+    public OffersScanner workers(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.workers = workers;
+        return this;
+    }
+
+    /** Page depth above which a partition is split further. */
+    public OffersScanner maxPagesPerPartition(int maxPagesPerPartition) {
+        if (maxPagesPerPartition < 1) {
+            throw new IllegalArgumentException("maxPagesPerPartition must be positive");
+        }
+        this.maxPagesPerPartition = maxPagesPerPartition;
+        return this;
+    }
+
+    /**
+     * Price range assumed where the query has no price filter (default: 0 to 100,000,000).
+     * It only picks split points; offers outside it land in the open-ended end partitions.
+     */
+    public OffersScanner priceRange(int min, int max) {
+        return range(Dimension.PRICE, min, max);
+    }
+
+    /** Year range assumed where the query has no year filter (default: 1900 to next year). */
+    public OffersScanner yearRange(int min, int max) {
+        return range(Dimension.YEAR, min, max);
+    }
+
+    /** Mileage range assumed where the query has no mileage filter (default: 0 to 2,000,000 km). */
+    public OffersScanner mileageRange(int min, int max) {
+        return range(Dimension.MILEAGE, min, max);
+    }
+
+    private OffersScanner range(Dimension dimension, int min, int max) {
+        if (max < min) {
+            throw new IllegalArgumentException("max must not be below min");
+        }
+        ranges.put(dimension, new int[]{min, max});
+        return this;
+    }
+
+    /**
+     * Set used to de-duplicate offers. By default each scan uses a fresh exact set; passing one
+     * in keeps it across scans, or shares it with a {@link ChangesFeedHub}.
+     */
+    public OffersScanner seenSet(SeenSet seenSet) {
+        this.seenSet = seenSet;
+        return this;
+    }
+
+    /**
+     * Whether to page through the original query after a split to pick up offers with no price,
+     * year or mileage value, which no range partition can select (default: false). Costs one
+     * extra pass over all of the query's pages, so only turn it on where such offers exist.
+     */
+    public OffersScanner remainderPass(boolean remainderPass) {
+        this.remainderPass = remainderPass;
+        return this;
+    }
+
+    /**
+     * Scans all offers matching the query.
+     *
+     * @param params   query to scan; its page is ignored
+     * @param consumer receives each offer not yet in the seen set once; calls are serialized
+     * @return number of distinct offers handed to the consumer
+     */
+    public long scan(OffersParams params, Consumer<OfferItem> consumer) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers, AutoApiClient.daemonThreads("auto-api-scanner"));
+        try {
+            OffersParams query = params != null ? params : new OffersParams();
+            List<OffersParams> partitions = partition(executor, query);
+            Delivery delivery = new Delivery(seenSet != null ? seenSet : SeenSet.exact(1024), consumer);
+            crawl(executor, partitions, delivery);
+            if (remainderPass && partitions.size() > 1) {
+                remainder(executor, query, delivery);
+            }
+            return delivery.count();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the query into partitions of at most maxPagesPerPartition pages, without fetching them.
+     *
+     * @param params query to split
+     * @return disjoint sub-queries covering the query
+     */
+    public List<OffersParams> partition(OffersParams params) {
+        ExecutorService executor = Executors.newFixedThreadPool(workers, AutoApiClient.daemonThreads("auto-api-scanner"));
+        try {
+            return partition(executor, params);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<OffersParams> partition(ExecutorService executor, OffersParams params) {
+        List<OffersParams> partitions = new ArrayList<>();
+        List<OffersParams> level = List.of(params);
+
+        // Breadth-first, so all partitions of one level are probed concurrently
+        for (int depth = 0; !level.isEmpty(); depth++) {
+            List<Future<Boolean>> probes = new ArrayList<>(level.size());
+            for (OffersParams candidate : level) {
+                probes.add(executor.submit(() -> isSmall(candidate)));
+            }
+            List<OffersParams> next = new ArrayList<>();
+            for (int i = 0; i < level.size(); i++) {
+                List<OffersParams> halves = AutoApiClient.await(probes.get(i)) ? null : split(level.get(i), depth);
+                if (halves == null) {
+                    partitions.add(level.get(i));
+                } else {
+                    next.addAll(halves);
+                }
+            }
+            level = next;
+        }
+        return partitions;
+    }
+
+    private boolean isSmall(OffersParams params) {
+        OffersResponse probe = client.getOffers(source, params.copy().page(maxPagesPerPartition));
+        return probe.getResult() == null || probe.getResult().isEmpty()
+                || probe.getMeta() == null || probe.getMeta().getNextPage() == 0;
+    }
+
+    /**
+     * Halves the range of the dimension whose turn it is at this depth, or of the next one
+     * that can still be split. An open end is bisected within the assumed range but stays
+     * open, so the outer halves also cover everything beyond it.
+     */
+    private List<OffersParams> split(OffersParams params, int depth) {
+        Dimension[] dimensions = Dimension.values();
+        for (int i = 0; i < dimensions.length; i++) {
+            Dimension dimension = dimensions[(depth + i) % dimensions.length];
+            int[] range = ranges.get(dimension);
+            Integer fromValue = dimension.from(params);
+            Integer toValue = dimension.to(params);
+            int from = fromValue != null ? fromValue : Math.min(range[0], toValue != null ? toValue : range[0]);
+            int to = toValue != null ? toValue : Math.max(range[1], from);
+            if (to > from) {
+                int mid = (int) (((long) from + to) >> 1);
+                return Arrays.asList(dimension.with(params, null, mid), dimension.with(params, mid + 1, null));
+            }
+        }
+        // Every range is down to a single value; page through what is left
+        return null;
+    }
+
+    private void crawl(ExecutorService executor, List<OffersParams> partitions, Delivery delivery) {
+        List<Future<?>> tasks = new ArrayList<>(partitions.size());
+        for (OffersParams partition : partitions) {
+            tasks.add(executor.submit(() -> {
+                int page = 1;
+                while (true) {
+                    OffersResponse response = client.getOffers(source, partition.copy().page(page));
+                    if (response.getResult() == null || response.getResult().isEmpty()) {
+                        return;
+                    }
+                    delivery.offer(response.getResult());
+                    int next = response.getMeta() != null ? response.getMeta().getNextPage() : 0;
+                    if (next <= page) {
+                        return;
+                    }
+                    page = next;
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            AutoApiClient.await(task);
+        }
+    }
+
+    /**
+     * Pages through the unsplit query with up to {@code workers} pages in flight, handing over
+     * offers the partitions did not return.
+     */
+    private void remainder(ExecutorService executor, OffersParams query, Delivery delivery) {
+        new PagePrefetcher<>(executor, workers, page -> client.getOffers(source, query.copy().page(page)))
+                .forEach(response -> {
+                    if (response.getResult() == null || response.getResult().isEmpty()) {
+                        return 0;
+                    }
+                    delivery.offer(response.getResult());
+                    return response.getMeta() != null ? response.getMeta().getNextPage() : 0;
+                });
+    }
+
+    /**
+     * Hands each offer not yet in the seen set to the consumer, one call at a time.
+     */
+    private final class Delivery {
+
+        private final SeenSet seen;
+        private final Consumer<OfferItem> consumer;
+        private long count;
+
+        Delivery(SeenSet seen, Consumer<OfferItem> consumer) {
+            this.seen = seen;
+            this.consumer = consumer;
+        }
+
+        void offer(List<OfferItem> items) {
+            for (OfferItem item : items) {
+                if (seen.add(source, item.getInnerId())) {
+                    synchronized (this) {
+                        consumer.accept(item);
+                        count++;
+                    }
+                }
+            }
+        }
+
+        synchronized long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.autoapi.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pages through a query with up to {@code window} pages in flight, handing them over in page order.
+ * The first page is fetched alone and the window widens only once the API reports more pages,
+ * so a single-page query makes no speculative calls.
+ *
+ * @param <P> fetched page
+ */
+final class PagePrefetcher<P> {
+
+    /** Fetches one page on a worker thread. */
+    interface Fetcher<P> {
+        P fetch(int page) throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final int window;
+    private final Fetcher<P> fetcher;
+
+    PagePrefetcher(ExecutorService executor, int window, Fetcher<P> fetcher) {
+        this.executor = executor;
+        this.window = window;
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * Hands every page to the handler in order until it reports no further page.
+     * Pages still in flight when it stops, or when the handler throws, are cancelled.
+     *
+     * @param handler consumes a page and returns the next page the API reported, 0 for none
+     */
+    void forEach(ToIntFunction<P> handler) {
+        Deque<Future<P>> pending = new ArrayDeque<>(window);
+        int nextToFetch = 1;
+        pending.add(fetch(nextToFetch++));
+        try {
+            for (int page = 1; ; page++) {
+                if (handler.applyAsInt(AutoApiClient.await(pending.poll())) <= page) {
+                    return;
+                }
+                // Widen the window only once more pages are known to exist
+                while (pending.size() < window) {
+                    pending.add(fetch(nextToFetch++));
+                }
+            }
+        } finally {
+            for (Future<P> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Future<P> fetch(int page) {
+        return executor.submit(() -> fetcher.fetch(page));
+    }
+}
@@ -0,0 +1,408 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory price history per offer, built from the changes feed.
+ * Only {@code (created_at, price, km_age)} points are kept. Each offer's points are stored
+ * as zigzag varint deltas in a single byte array, typically a few bytes per point,
+ * and a point is only added when the price or mileage actually moved.
+ *
+ * <p>Offers are also indexed by mark and model for downsampled aggregates.
+ */
+public class PriceHistory {
+
+    /**
+     * A price observation.
+     */
+    public static final class Point {
+
+        private final long epochSecond;
+        private final long price;
+        private final long kmAge;
+
+        Point(long epochSecond, long price, long kmAge) {
+            this.epochSecond = epochSecond;
+            this.price = price;
+            this.kmAge = kmAge;
+        }
+
+        public Instant getTime() {
+            return Instant.ofEpochSecond(epochSecond);
+        }
+
+        public long getPrice() {
+            return price;
+        }
+
+        /** Mileage at the time of the observation, or -1 if unknown. */
+        public long getKmAge() {
+            return kmAge;
+        }
+
+        @Override
+        public String toString() {
+            return getTime() + " " + price + " (" + kmAge + " km)";
+        }
+    }
+
+    /**
+     * Aggregate of one time bucket over the offers of a mark or model.
+     * Each offer contributes its last price within the bucket.
+     */
+    public static final class Bucket {
+
+        private final Instant start;
+        private final int offers;
+        private final long min;
+        private final long max;
+        private final double mean;
+
+        Bucket(Instant start, int offers, long min, long max, double mean) {
+            this.start = start;
+            this.offers = offers;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        /** Number of offers with a price in this bucket. */
+        public int getOffers() {
+            return offers;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d offers, %d-%d, mean %.0f", start, offers, min, max, mean);
+        }
+    }
+
+    private static final class Series {
+        final String mark;
+        final String model;
+        byte[] data = new byte[16];
+        int length;
+        int count;
+        long lastTime;
+        long lastPrice;
+        long lastKm;
+
+        Series(String mark, String model) {
+            this.mark = mark;
+            this.model = model;
+        }
+
+        void add(long time, long price, long km) {
+            if (length + 30 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            length = writeVarLong(data, length, time - lastTime);
+            length = writeVarLong(data, length, price - lastPrice);
+            length = writeVarLong(data, length, km - lastKm);
+            lastTime = time;
+            lastPrice = price;
+            lastKm = km;
+            count++;
+        }
+    }
+
+    private final Map<String, Series> series = new HashMap<>();
+    private final Map<String, Set<String>> byModel = new HashMap<>();
+    private long points;
+
+    /**
+     * Records the price of an added or changed event. Removed events and items
+     * without a numeric price are ignored.
+     */
+    public void accept(ChangeItem item) {
+        if ("removed".equals(item.getChangeType()) || item.getData() == null || !item.getData().isJsonObject()) {
+            return;
+        }
+        JsonObject data = item.getData().getAsJsonObject();
+        double price = OfferDiff.number(text(data.get("price")));
+        if (Double.isNaN(price)) {
+            return;
+        }
+        double km = OfferDiff.number(text(data.get("km_age")));
+        long time = epochSecond(item.getCreatedAt());
+        if (time == Long.MIN_VALUE) {
+            return;
+        }
+        record(item.getInnerId(), text(data.get("mark")), text(data.get("model")),
+                time, Math.round(price), Double.isNaN(km) ? -1 : Math.round(km));
+    }
+
+    /**
+     * Records every item of a page.
+     */
+    public void acceptAll(List<ChangeItem> items) {
+        for (ChangeItem item : items) {
+            accept(item);
+        }
+    }
+
+    /**
+     * Records a price point. Points older than the offer's latest point, and points with the
+     * same price and mileage as the latest one, are dropped.
+     *
+     * @param innerId     offer ID
+     * @param mark        mark, or null to keep the one already known
+     * @param model       model, or null to keep the one already known
+     * @param epochSecond observation time
+     * @param price       price
+     * @param kmAge       mileage, or -1 if unknown
+     */
+    public synchronized void record(String innerId, String mark, String model, long epochSecond, long price, long kmAge) {
+        Series s = series.get(innerId);
+        if (s == null || (mark != null && !mark.equals(s.mark)) || (model != null && !model.equals(s.model))) {
+            s = reindex(innerId, s, mark, model);
+        }
+        if (s.count > 0 && (epochSecond < s.lastTime || (price == s.lastPrice && kmAge == s.lastKm))) {
+            return;
+        }
+        s.add(epochSecond, price, kmAge);
+        points++;
+    }
+
+    /**
+     * Returns an offer's points within a time range.
+     *
+     * @param innerId offer ID
+     * @param from    start (inclusive), or null for no lower bound
+     * @param to      end (exclusive), or null for no upper bound
+     * @return points in time order; empty if the offer is unknown
+     */
+    public synchronized List<Point> history(String innerId, Instant from, Instant to) {
+        Series s = series.get(innerId);
+        List<Point> out = new ArrayList<>();
+        if (s == null) {
+            return out;
+        }
+        long lower = from != null ? from.getEpochSecond() : Long.MIN_VALUE;
+        long upper = to != null ? to.getEpochSecond() : Long.MAX_VALUE;
+        long[] cursor = new long[4];
+        for (int i = 0; i < s.count; i++) {
+            next(s.data, cursor);
+            if (cursor[1] >= upper) {
+                break;
+            }
+            if (cursor[1] >= lower) {
+                out.add(new Point(cursor[1], cursor[2], cursor[3]));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Latest known price of an offer, or -1 if the offer is unknown.
+     */
+    public synchronized long latestPrice(String innerId) {
+        Series s = series.get(innerId);
+        return s != null && s.count > 0 ? s.lastPrice : -1;
+    }
+
+    /**
+     * Downsamples the prices of a mark or model into fixed time buckets.
+     *
+     * @param mark   mark to aggregate
+     * @param model  model within the mark, or null for the whole mark
+     * @param from   start of the first bucket (inclusive)
+     * @param to     end of the range (exclusive)
+     * @param bucket bucket length
+     * @return one bucket per interval that has at least one price, in time order
+     */
+    public synchronized List<Bucket> aggregate(String mark, String model, Instant from, Instant to, Duration bucket) {
+        long start = from.getEpochSecond();
+        long width = bucket.getSeconds();
+        if (width < 1) {
+            throw new IllegalArgumentException("bucket must be at least one second");
+        }
+        int buckets = (int) Math.max(0, (to.getEpochSecond() - start + width - 1) / width);
+        int[] offers = new int[buckets];
+        long[] min = new long[buckets];
+        long[] max = new long[buckets];
+        double[] sum = new double[buckets];
+
+        long[] cursor = new long[4];
+        for (String innerId : offersOf(mark, model)) {
+            Series s = series.get(innerId);
+            Arrays.fill(cursor, 0);
+            int currentBucket = -1;
+            long currentPrice = 0;
+            for (int i = 0; i <= s.count; i++) {
+                int b = -1;
+                if (i < s.count) {
+                    next(s.data, cursor);
+                    b = cursor[1] < start ? -1 : (int) Math.min(Integer.MAX_VALUE, (cursor[1] - start) / width);
+                }
+                if (currentBucket >= 0 && currentBucket < buckets && (i == s.count || b != currentBucket)) {
+                    // The offer's last price in the bucket it is leaving
+                    if (offers[currentBucket]++ == 0) {
+                        min[currentBucket] = currentPrice;
+                        max[currentBucket] = currentPrice;
+                    } else {
+                        min[currentBucket] = Math.min(min[currentBucket], currentPrice);
+                        max[currentBucket] = Math.max(max[currentBucket], currentPrice);
+                    }
+                    sum[currentBucket] += currentPrice;
+                }
+                if (i == s.count || b >= buckets) {
+                    break;
+                }
+                currentBucket = b;
+                currentPrice = cursor[2];
+            }
+        }
+
+        List<Bucket> out = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) {
+            if (offers[b] > 0) {
+                out.add(new Bucket(Instant.ofEpochSecond(start + b * width), offers[b], min[b], max[b], sum[b] / offers[b]));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Number of offers with at least one point.
+     */
+    public synchronized int offerCount() {
+        return series.size();
+    }
+
+    /**
+     * Total number of points stored.
+     */
+    public synchronized long pointCount() {
+        return points;
+    }
+
+    private Set<String> offersOf(String mark, String model) {
+        if (model != null) {
+            return byModel.getOrDefault(key(mark, model), Set.of());
+        }
+        Set<String> all = new HashSet<>(byModel.getOrDefault(key(mark, null), Set.of()));
+        String prefix = mark + '\u0000';
+        for (Map.Entry<String, Set<String>> entry : byModel.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                all.addAll(entry.getValue());
+            }
+        }
+        return all;
+    }
+
+    private Series reindex(String innerId, Series old, String mark, String model) {
+        String newMark = mark != null ? mark : old != null ? old.mark : null;
+        String newModel = model != null ? model : old != null ? old.model : null;
+        Series s = new Series(newMark, newModel);
+        if (old != null) {
+            Set<String> ids = byModel.get(key(old.mark, old.model));
+            if (ids != null) {
+                ids.remove(innerId);
+            }
+            s.data = old.data;
+            s.length = old.length;
+            s.count = old.count;
+            s.lastTime = old.lastTime;
+            s.lastPrice = old.lastPrice;
+            s.lastKm = old.lastKm;
+        }
+        series.put(innerId, s);
+        byModel.computeIfAbsent(key(newMark, newModel), k -> new HashSet<>()).add(innerId);
+        return s;
+    }
+
+    private static String key(String mark, String model) {
+        return mark == null ? "" : model == null ? mark : mark + '\u0000' + model;
+    }
+
+    /**
+     * Decodes the next point. cursor holds the read position followed by the previous
+     * time, price and mileage, and is updated in place.
+     */
+    private static void next(byte[] data, long[] cursor) {
+        for (int field = 1; field <= 3; field++) {
+            int position = (int) cursor[0];
+            long raw = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                raw |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            cursor[0] = position;
+            cursor[field] += (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+
+    private static int writeVarLong(byte[] data, int position, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7fL) != 0) {
+            data[position++] = (byte) ((zigzag & 0x7f) | 0x80);
+            zigzag >>>= 7;
+        }
+        data[position++] = (byte) zigzag;
+        return position;
+    }
+
+    private static String text(JsonElement value) {
+        return value == null || value.isJsonNull() || !value.isJsonPrimitive() ? null : value.getAsString();
+    }
+
+    /**
+     * Parses created_at as an instant, an offset or local date-time (UTC), or a date.
+     * Returns Long.MIN_VALUE if it cannot be parsed.
+     */
+    private static long epochSecond(String createdAt) {
+        if (createdAt == null || createdAt.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        String text = createdAt.replace(' ', 'T');
+        try {
+            if (text.length() == 10) {
+                return LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+            }
+            char last = text.charAt(text.length() - 1);
+            if (last == 'Z' || text.lastIndexOf('+') > 10 || text.lastIndexOf('-') > 10) {
+                return OffsetDateTime.parse(text).toEpochSecond();
+            }
+            return LocalDateTime.parse(text).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
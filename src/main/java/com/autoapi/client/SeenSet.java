@@ -0,0 +1,78 @@
+package com.autoapi.client;
+
+/**
+ * Set of {@code (source, inner_id)} pairs already processed, for skipping repeats across
+ * offer pages and change events. Implementations store 64-bit hashes rather than the IDs
+ * themselves, so memory stays at a few bytes per ID regardless of ID length.
+ *
+ * <p>All implementations are thread-safe.
+ */
+public interface SeenSet {
+
+    /**
+     * Marks an offer as seen.
+     *
+     * @return true if the offer was not seen before
+     */
+    boolean add(String source, String innerId);
+
+    /**
+     * Whether an offer was seen. A probabilistic set may return true for an offer it has not seen.
+     */
+    boolean contains(String source, String innerId);
+
+    /**
+     * Number of offers added.
+     */
+    long size();
+
+    /**
+     * Exact set over 64-bit hashes in an on-heap open-addressing table, 16 to 32 bytes per ID
+     * depending on how recently the table grew. Two different IDs share a hash with negligible
+     * probability (around 3 in 10^4 for a hundred million IDs).
+     *
+     * @param expected expected number of IDs; the table grows beyond it as needed
+     */
+    static SeenSet exact(long expected) {
+        return new LongHashSeenSet(expected, false);
+    }
+
+    /**
+     * Like {@link #exact(long)}, with the table in direct memory outside the Java heap,
+     * so it neither counts against -Xmx nor adds GC work. Holds up to about 67 million IDs.
+     */
+    static SeenSet exactOffHeap(long expected) {
+        return new LongHashSeenSet(expected, true);
+    }
+
+    /**
+     * Scalable Bloom filter: a chain of filters with doubling capacity and tightening error
+     * rates, so the false-positive rate stays below {@code falsePositiveRate} however many IDs
+     * are added. Uses about 1.5 to 2 bytes per ID at 1%. A false positive makes an unseen offer
+     * look seen, so it is skipped.
+     *
+     * @param expected          expected number of IDs; more can be added
+     * @param falsePositiveRate target false-positive rate, e.g. 0.01
+     */
+    static SeenSet bloom(long expected, double falsePositiveRate) {
+        return new BloomSeenSet(expected, falsePositiveRate);
+    }
+
+    /**
+     * 64-bit hash of a (source, inner_id) pair, shared by the implementations.
+     */
+    static long hash(String source, String innerId) {
+        // FNV-1a over the chars of source, a separator and inner_id, then a SplitMix64 finalizer
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < source.length(); i++) {
+            hash = (hash ^ source.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ '/') * 0x100000001b3L;
+        for (int i = 0; i < innerId.length(); i++) {
+            hash = (hash ^ innerId.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
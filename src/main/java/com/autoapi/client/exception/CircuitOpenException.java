@@ -0,0 +1,13 @@
+package com.autoapi.client.exception;
+
+/**
+ * Exception thrown without calling the API while the circuit breaker for a
+ * source and endpoint is open after repeated failures.
+ * Status code is 0, as for other errors raised on the client side.
+ */
+public class CircuitOpenException extends ApiException {
+
+    public CircuitOpenException(int statusCode, String message, String responseBody) {
+        super(statusCode, message, responseBody);
+    }
+}
@@ -0,0 +1,13 @@
+package com.autoapi.client.exception;
+
+/**
+ * Exception thrown without calling the API when a source already has the
+ * maximum number of requests in flight.
+ * Status code is 0, as for other errors raised on the client side.
+ */
+public class OverloadedException extends ApiException {
+
+    public OverloadedException(int statusCode, String message, String responseBody) {
+        super(statusCode, message, responseBody);
+    }
+}
@@ -22,6 +22,20 @@ public class ChangeItem {
 
     private JsonElement data;
 
+    public ChangeItem() {
+    }
+
+    /**
+     * Creates a change item, e.g. to re-emit a compacted or replayed event.
+     */
+    public ChangeItem(int id, String innerId, String changeType, String createdAt, JsonElement data) {
+        this.id = id;
+        this.innerId = innerId;
+        this.changeType = changeType;
+        this.createdAt = createdAt;
+        this.data = data;
+    }
+
     public int getId() {
         return id;
     }
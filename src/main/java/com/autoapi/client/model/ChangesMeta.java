@@ -15,6 +15,15 @@ public class ChangesMeta {
 
     private int limit;
 
+    public ChangesMeta() {
+    }
+
+    ChangesMeta(int curChangeId, int nextChangeId, int limit) {
+        this.curChangeId = curChangeId;
+        this.nextChangeId = nextChangeId;
+        this.limit = limit;
+    }
+
     public int getCurChangeId() {
         return curChangeId;
     }
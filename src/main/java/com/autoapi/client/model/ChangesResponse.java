@@ -10,6 +10,14 @@ public class ChangesResponse {
     private List<ChangeItem> result;
     private ChangesMeta meta;
 
+    public ChangesResponse() {
+    }
+
+    ChangesResponse(List<ChangeItem> result, ChangesMeta meta) {
+        this.result = result;
+        this.meta = meta;
+    }
+
     public List<ChangeItem> getResult() {
         return result;
     }
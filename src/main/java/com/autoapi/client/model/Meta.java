@@ -14,6 +14,15 @@ public class Meta {
 
     private int limit;
 
+    public Meta() {
+    }
+
+    Meta(int page, int nextPage, int limit) {
+        this.page = page;
+        this.nextPage = nextPage;
+        this.limit = limit;
+    }
+
     public int getPage() {
         return page;
     }
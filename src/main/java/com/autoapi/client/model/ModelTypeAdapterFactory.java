@@ -0,0 +1,486 @@
+package com.autoapi.client.model;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written streaming Gson adapters for all model classes.
+ * Reads fields straight from the token stream instead of going through reflection.
+ * The raw {@code data} of offers and changes is still read as a {@link JsonElement} tree,
+ * since that is what {@link OfferItem#getData()} and {@link ChangeItem#getData()} expose.
+ *
+ * <p>With a {@link StringPool}, repeated categorical values (mark, model, body_type, color, etc.)
+ * of {@link OfferData} and of the raw {@code data}, as well as {@code change_type}, are interned
+ * as they are read, without allocating anything beyond what an unpooled parse does.
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    /** Offer data fields whose values repeat across listings. */
+    private static final String[] CATEGORICAL_FIELDS = {
+            "mark", "model", "generation", "year", "color", "engine_type",
+            "transmission_type", "body_type", "seller_type", "displacement"
+    };
+
+    private final StringPool pool;
+
+    /**
+     * Creates a factory without string interning.
+     */
+    public ModelTypeAdapterFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a factory that interns categorical values through the given pool.
+     *
+     * @param pool string pool, or null to disable interning
+     */
+    public ModelTypeAdapterFactory(StringPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        TypeAdapter<?> adapter;
+        if (raw == OffersResponse.class) {
+            adapter = new OffersResponseAdapter(gson.getAdapter(OfferItem.class), gson.getAdapter(Meta.class));
+        } else if (raw == ChangesResponse.class) {
+            adapter = new ChangesResponseAdapter(gson.getAdapter(ChangeItem.class), gson.getAdapter(ChangesMeta.class));
+        } else if (raw == OfferItem.class) {
+            adapter = new OfferItemAdapter(gson.getAdapter(JsonElement.class));
+        } else if (raw == ChangeItem.class) {
+            adapter = new ChangeItemAdapter(gson.getAdapter(JsonElement.class));
+        } else if (raw == Meta.class) {
+            adapter = new MetaAdapter();
+        } else if (raw == ChangesMeta.class) {
+            adapter = new ChangesMetaAdapter();
+        } else if (raw == OfferData.class) {
+            adapter = new OfferDataAdapter();
+        } else {
+            return null;
+        }
+        return (TypeAdapter<T>) adapter.nullSafe();
+    }
+
+    private final class OffersResponseAdapter extends TypeAdapter<OffersResponse> {
+
+        private final TypeAdapter<OfferItem> itemAdapter;
+        private final TypeAdapter<Meta> metaAdapter;
+
+        OffersResponseAdapter(TypeAdapter<OfferItem> itemAdapter, TypeAdapter<Meta> metaAdapter) {
+            this.itemAdapter = itemAdapter;
+            this.metaAdapter = metaAdapter;
+        }
+
+        @Override
+        public OffersResponse read(JsonReader in) throws IOException {
+            List<OfferItem> result = null;
+            Meta meta = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "result": result = readList(in, itemAdapter); break;
+                    case "meta": meta = metaAdapter.read(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new OffersResponse(result, meta);
+        }
+
+        @Override
+        public void write(JsonWriter out, OffersResponse value) throws IOException {
+            out.beginObject();
+            out.name("result");
+            writeList(out, itemAdapter, value.getResult());
+            out.name("meta");
+            metaAdapter.write(out, value.getMeta());
+            out.endObject();
+        }
+    }
+
+    private final class ChangesResponseAdapter extends TypeAdapter<ChangesResponse> {
+
+        private final TypeAdapter<ChangeItem> itemAdapter;
+        private final TypeAdapter<ChangesMeta> metaAdapter;
+
+        ChangesResponseAdapter(TypeAdapter<ChangeItem> itemAdapter, TypeAdapter<ChangesMeta> metaAdapter) {
+            this.itemAdapter = itemAdapter;
+            this.metaAdapter = metaAdapter;
+        }
+
+        @Override
+        public ChangesResponse read(JsonReader in) throws IOException {
+            List<ChangeItem> result = null;
+            ChangesMeta meta = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "result": result = readList(in, itemAdapter); break;
+                    case "meta": meta = metaAdapter.read(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChangesResponse(result, meta);
+        }
+
+        @Override
+        public void write(JsonWriter out, ChangesResponse value) throws IOException {
+            out.beginObject();
+            out.name("result");
+            writeList(out, itemAdapter, value.getResult());
+            out.name("meta");
+            metaAdapter.write(out, value.getMeta());
+            out.endObject();
+        }
+    }
+
+    private final class OfferItemAdapter extends TypeAdapter<OfferItem> {
+
+        private final TypeAdapter<JsonElement> elementAdapter;
+
+        OfferItemAdapter(TypeAdapter<JsonElement> elementAdapter) {
+            this.elementAdapter = elementAdapter;
+        }
+
+        @Override
+        public OfferItem read(JsonReader in) throws IOException {
+            int id = 0;
+            String innerId = null;
+            String changeType = null;
+            String createdAt = null;
+            JsonElement data = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": id = readInt(in); break;
+                    case "inner_id": innerId = readString(in); break;
+                    case "change_type": changeType = intern(readString(in)); break;
+                    case "created_at": createdAt = readString(in); break;
+                    case "data": data = readData(in, elementAdapter); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new OfferItem(id, innerId, changeType, createdAt, data);
+        }
+
+        @Override
+        public void write(JsonWriter out, OfferItem value) throws IOException {
+            out.beginObject();
+            out.name("id").value(value.getId());
+            out.name("inner_id").value(value.getInnerId());
+            out.name("change_type").value(value.getChangeType());
+            out.name("created_at").value(value.getCreatedAt());
+            out.name("data");
+            elementAdapter.write(out, value.getData());
+            out.endObject();
+        }
+    }
+
+    private final class ChangeItemAdapter extends TypeAdapter<ChangeItem> {
+
+        private final TypeAdapter<JsonElement> elementAdapter;
+
+        ChangeItemAdapter(TypeAdapter<JsonElement> elementAdapter) {
+            this.elementAdapter = elementAdapter;
+        }
+
+        @Override
+        public ChangeItem read(JsonReader in) throws IOException {
+            int id = 0;
+            String innerId = null;
+            String changeType = null;
+            String createdAt = null;
+            JsonElement data = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": id = readInt(in); break;
+                    case "inner_id": innerId = readString(in); break;
+                    case "change_type": changeType = intern(readString(in)); break;
+                    case "created_at": createdAt = readString(in); break;
+                    case "data": data = readData(in, elementAdapter); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChangeItem(id, innerId, changeType, createdAt, data);
+        }
+
+        @Override
+        public void write(JsonWriter out, ChangeItem value) throws IOException {
+            out.beginObject();
+            out.name("id").value(value.getId());
+            out.name("inner_id").value(value.getInnerId());
+            out.name("change_type").value(value.getChangeType());
+            out.name("created_at").value(value.getCreatedAt());
+            out.name("data");
+            elementAdapter.write(out, value.getData());
+            out.endObject();
+        }
+    }
+
+    private static final class MetaAdapter extends TypeAdapter<Meta> {
+
+        @Override
+        public Meta read(JsonReader in) throws IOException {
+            int page = 0;
+            int nextPage = 0;
+            int limit = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "page": page = readInt(in); break;
+                    case "next_page": nextPage = readInt(in); break;
+                    case "limit": limit = readInt(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new Meta(page, nextPage, limit);
+        }
+
+        @Override
+        public void write(JsonWriter out, Meta value) throws IOException {
+            out.beginObject();
+            out.name("page").value(value.getPage());
+            out.name("next_page").value(value.getNextPage());
+            out.name("limit").value(value.getLimit());
+            out.endObject();
+        }
+    }
+
+    private static final class ChangesMetaAdapter extends TypeAdapter<ChangesMeta> {
+
+        @Override
+        public ChangesMeta read(JsonReader in) throws IOException {
+            int curChangeId = 0;
+            int nextChangeId = 0;
+            int limit = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "cur_change_id": curChangeId = readInt(in); break;
+                    case "next_change_id": nextChangeId = readInt(in); break;
+                    case "limit": limit = readInt(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChangesMeta(curChangeId, nextChangeId, limit);
+        }
+
+        @Override
+        public void write(JsonWriter out, ChangesMeta value) throws IOException {
+            out.beginObject();
+            out.name("cur_change_id").value(value.getCurChangeId());
+            out.name("next_change_id").value(value.getNextChangeId());
+            out.name("limit").value(value.getLimit());
+            out.endObject();
+        }
+    }
+
+    private final class OfferDataAdapter extends TypeAdapter<OfferData> {
+
+        @Override
+        public OfferData read(JsonReader in) throws IOException {
+            String innerId = null, url = null, mark = null, model = null, generation = null;
+            String configuration = null, complectation = null, year = null, color = null, price = null;
+            String kmAge = null, engineType = null, transmissionType = null, bodyType = null, address = null;
+            String sellerType = null, displacement = null, offerCreated = null;
+            boolean isDealer = false;
+            List<String> images = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "inner_id": innerId = readString(in); break;
+                    case "url": url = readString(in); break;
+                    case "mark": mark = intern(readString(in)); break;
+                    case "model": model = intern(readString(in)); break;
+                    case "generation": generation = intern(readString(in)); break;
+                    case "configuration": configuration = readString(in); break;
+                    case "complectation": complectation = readString(in); break;
+                    case "year": year = intern(readString(in)); break;
+                    case "color": color = intern(readString(in)); break;
+                    case "price": price = readString(in); break;
+                    case "km_age": kmAge = readString(in); break;
+                    case "engine_type": engineType = intern(readString(in)); break;
+                    case "transmission_type": transmissionType = intern(readString(in)); break;
+                    case "body_type": bodyType = intern(readString(in)); break;
+                    case "address": address = readString(in); break;
+                    case "seller_type": sellerType = intern(readString(in)); break;
+                    case "is_dealer": isDealer = readBoolean(in); break;
+                    case "displacement": displacement = intern(readString(in)); break;
+                    case "offer_created": offerCreated = readString(in); break;
+                    case "images": images = readStrings(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return new OfferData(innerId, url, mark, model, generation, configuration, complectation,
+                    year, color, price, kmAge, engineType, transmissionType, bodyType, address,
+                    sellerType, isDealer, displacement, offerCreated, images);
+        }
+
+        @Override
+        public void write(JsonWriter out, OfferData value) throws IOException {
+            out.beginObject();
+            out.name("inner_id").value(value.getInnerId());
+            out.name("url").value(value.getUrl());
+            out.name("mark").value(value.getMark());
+            out.name("model").value(value.getModel());
+            out.name("generation").value(value.getGeneration());
+            out.name("configuration").value(value.getConfiguration());
+            out.name("complectation").value(value.getComplectation());
+            out.name("year").value(value.getYear());
+            out.name("color").value(value.getColor());
+            out.name("price").value(value.getPrice());
+            out.name("km_age").value(value.getKmAge());
+            out.name("engine_type").value(value.getEngineType());
+            out.name("transmission_type").value(value.getTransmissionType());
+            out.name("body_type").value(value.getBodyType());
+            out.name("address").value(value.getAddress());
+            out.name("seller_type").value(value.getSellerType());
+            out.name("is_dealer").value(value.isDealer());
+            out.name("displacement").value(value.getDisplacement());
+            out.name("offer_created").value(value.getOfferCreated());
+            out.name("images");
+            if (value.getImages() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (String image : value.getImages()) {
+                    out.value(image);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+    }
+
+    private String intern(String value) {
+        return pool != null ? pool.intern(value) : value;
+    }
+
+    /**
+     * Reads the raw {@code data} object field by field, interning categorical string values
+     * as they come off the stream, so no intermediate values are built and then replaced.
+     * Nested values and non-object data are left to the regular element adapter.
+     */
+    private JsonElement readData(JsonReader in, TypeAdapter<JsonElement> elementAdapter) throws IOException {
+        if (pool == null || in.peek() != JsonToken.BEGIN_OBJECT) {
+            return elementAdapter.read(in);
+        }
+        JsonObject data = new JsonObject();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.STRING && isCategorical(name)) {
+                data.add(name, new JsonPrimitive(pool.intern(in.nextString())));
+            } else {
+                data.add(name, elementAdapter.read(in));
+            }
+        }
+        in.endObject();
+        return data;
+    }
+
+    private static boolean isCategorical(String field) {
+        for (String categorical : CATEGORICAL_FIELDS) {
+            if (categorical.equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <E> List<E> readList(JsonReader in, TypeAdapter<E> adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<E> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(adapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static <E> void writeList(JsonWriter out, TypeAdapter<E> adapter, List<E> list) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (E element : list) {
+            adapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(readString(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            default:
+                return in.nextString();
+        }
+    }
+
+    private static int readInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    private static boolean readBoolean(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return false;
+            case STRING:
+                return Boolean.parseBoolean(in.nextString());
+            default:
+                return in.nextBoolean();
+        }
+    }
+}
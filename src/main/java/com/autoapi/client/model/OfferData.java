@@ -52,6 +52,35 @@ public class OfferData {
 
     private List<String> images;
 
+    public OfferData() {
+    }
+
+    OfferData(String innerId, String url, String mark, String model, String generation,
+              String configuration, String complectation, String year, String color, String price,
+              String kmAge, String engineType, String transmissionType, String bodyType, String address,
+              String sellerType, boolean isDealer, String displacement, String offerCreated, List<String> images) {
+        this.innerId = innerId;
+        this.url = url;
+        this.mark = mark;
+        this.model = model;
+        this.generation = generation;
+        this.configuration = configuration;
+        this.complectation = complectation;
+        this.year = year;
+        this.color = color;
+        this.price = price;
+        this.kmAge = kmAge;
+        this.engineType = engineType;
+        this.transmissionType = transmissionType;
+        this.bodyType = bodyType;
+        this.address = address;
+        this.sellerType = sellerType;
+        this.isDealer = isDealer;
+        this.displacement = displacement;
+        this.offerCreated = offerCreated;
+        this.images = images;
+    }
+
     public String getInnerId() { return innerId; }
     public String getUrl() { return url; }
     public String getMark() { return mark; }
@@ -22,6 +22,17 @@ public class OfferItem {
 
     private JsonElement data;
 
+    public OfferItem() {
+    }
+
+    OfferItem(int id, String innerId, String changeType, String createdAt, JsonElement data) {
+        this.id = id;
+        this.innerId = innerId;
+        this.changeType = changeType;
+        this.createdAt = createdAt;
+        this.data = data;
+    }
+
     public int getId() {
         return id;
     }
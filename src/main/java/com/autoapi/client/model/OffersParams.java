@@ -70,6 +70,45 @@ public class OffersParams {
     /** Maximum price filter. */
     public OffersParams priceTo(int priceTo) { this.priceTo = priceTo; return this; }
 
+    /**
+     * Returns an independent copy of these params, e.g. to derive sub-queries.
+     */
+    public OffersParams copy() {
+        OffersParams copy = new OffersParams();
+        copy.page = page;
+        copy.brand = brand;
+        copy.model = model;
+        copy.configuration = configuration;
+        copy.complectation = complectation;
+        copy.transmission = transmission;
+        copy.color = color;
+        copy.bodyType = bodyType;
+        copy.engineType = engineType;
+        copy.yearFrom = yearFrom;
+        copy.yearTo = yearTo;
+        copy.mileageFrom = mileageFrom;
+        copy.mileageTo = mileageTo;
+        copy.priceFrom = priceFrom;
+        copy.priceTo = priceTo;
+        return copy;
+    }
+
+    public int getPage() { return page; }
+    public String getBrand() { return brand; }
+    public String getModel() { return model; }
+    public String getConfiguration() { return configuration; }
+    public String getComplectation() { return complectation; }
+    public String getTransmission() { return transmission; }
+    public String getColor() { return color; }
+    public String getBodyType() { return bodyType; }
+    public String getEngineType() { return engineType; }
+    public Integer getYearFrom() { return yearFrom; }
+    public Integer getYearTo() { return yearTo; }
+    public Integer getMileageFrom() { return mileageFrom; }
+    public Integer getMileageTo() { return mileageTo; }
+    public Integer getPriceFrom() { return priceFrom; }
+    public Integer getPriceTo() { return priceTo; }
+
     /**
      * Converts parameters to a map of query string key-value pairs (snake_case keys).
      * Only non-null values are included.
@@ -10,6 +10,14 @@ public class OffersResponse {
     private List<OfferItem> result;
     private Meta meta;
 
+    public OffersResponse() {
+    }
+
+    OffersResponse(List<OfferItem> result, Meta meta) {
+        this.result = result;
+        this.meta = meta;
+    }
+
     public List<OfferItem> getResult() {
         return result;
     }
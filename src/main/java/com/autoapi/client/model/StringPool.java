@@ -0,0 +1,90 @@
+package com.autoapi.client.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, thread-safe intern pool for repeated categorical values
+ * (marks, models, body types, colors, etc.).
+ * Once the pool is full, new values are returned as-is instead of being pooled,
+ * so memory use stays bounded even if a field turns out to be high-cardinality.
+ */
+public class StringPool {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, String> pool;
+
+    /**
+     * Creates a pool holding up to 100,000 distinct values.
+     */
+    public StringPool() {
+        this(100_000);
+    }
+
+    /**
+     * Creates a pool with a custom bound.
+     *
+     * @param maxSize maximum number of distinct values kept
+     */
+    public StringPool(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.pool = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * Returns the canonical instance of the value.
+     *
+     * @param value value to intern, may be null
+     * @return pooled instance, or the value itself if the pool is full
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = pool.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (pool.size() >= maxSize) {
+            return value;
+        }
+        canonical = pool.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    /**
+     * Pre-populates the pool with every string in a getFilters() response,
+     * so the first parsed offers already share instances.
+     *
+     * @param filters result of {@code AutoApiClient.getFilters(source)}
+     */
+    public void seed(Map<String, Object> filters) {
+        seedValue(filters);
+    }
+
+    /**
+     * Number of distinct values currently pooled.
+     */
+    public int size() {
+        return pool.size();
+    }
+
+    private void seedValue(Object value) {
+        if (value instanceof String) {
+            intern((String) value);
+        } else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                seedValue(entry.getKey());
+                seedValue(entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                seedValue(element);
+            }
+        }
+    }
+}
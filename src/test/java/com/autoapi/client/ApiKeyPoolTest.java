@@ -0,0 +1,81 @@
+package com.autoapi.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyPoolTest {
+
+    @Test
+    void spreadsRequestsEvenly() {
+        ApiKeyPool pool = new ApiKeyPool(List.of("a", "b", "c"));
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 30; i++) {
+            counts.merge(pool.acquire(), 1, Integer::sum);
+        }
+
+        assertEquals(Map.of("a", 10, "b", 10, "c", 10), counts);
+    }
+
+    @Test
+    void prefersKeyWithMostRemainingBudget() {
+        ApiKeyPool pool = new ApiKeyPool(List.of("a", "b"), 3, Duration.ofHours(1));
+
+        assertEquals("a", pool.acquire());
+        assertEquals("b", pool.acquire());
+        assertEquals("a", pool.acquire());
+        assertEquals("b", pool.acquire());
+        assertEquals("a", pool.acquire());
+        assertEquals("b", pool.acquire());
+
+        assertEquals(0, pool.getUsage().get(0).getRemaining());
+        assertEquals(3, pool.getUsage().get(1).getRequests());
+    }
+
+    @Test
+    void rateLimitedKey_leavesRotation() {
+        ApiKeyPool pool = new ApiKeyPool(List.of("a", "b"));
+        pool.rateLimited("a", Duration.ofMinutes(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("b", pool.acquire());
+        }
+        ApiKeyPool.KeyUsage usage = pool.getUsage().get(0);
+        assertFalse(usage.isAvailable());
+        assertEquals(1, usage.getRateLimited());
+    }
+
+    @Test
+    void authFailedKey_leavesRotation() {
+        ApiKeyPool pool = new ApiKeyPool(List.of("a", "b"));
+        pool.authFailed("b");
+
+        assertEquals("a", pool.acquire());
+        assertEquals("a", pool.acquire());
+        assertEquals(1, pool.getUsage().get(1).getAuthFailures());
+    }
+
+    @Test
+    void keyReturnsAfterCooldown() {
+        ApiKeyPool pool = new ApiKeyPool(List.of("a", "b"));
+        pool.rateLimited("a", Duration.ZERO);
+
+        assertTrue(pool.getUsage().get(0).isAvailable());
+        assertEquals("a", pool.acquire());
+    }
+
+    @Test
+    void allKeysOut_usesTheOneRecoveringFirst() {
+        ApiKeyPool pool = new ApiKeyPool(List.of("a", "b"));
+        pool.rateLimited("a", Duration.ofMinutes(5));
+        pool.rateLimited("b", Duration.ofMinutes(1));
+
+        assertEquals("b", pool.acquire());
+    }
+}
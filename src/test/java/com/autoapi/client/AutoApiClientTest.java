@@ -2,9 +2,13 @@ package com.autoapi.client;
 
 import com.autoapi.client.exception.ApiException;
 import com.autoapi.client.exception.AuthException;
+import com.autoapi.client.exception.CircuitOpenException;
+import com.autoapi.client.exception.OverloadedException;
+import com.autoapi.client.model.Meta;
 import com.autoapi.client.model.OffersParams;
 import com.autoapi.client.model.OffersResponse;
 import com.autoapi.client.model.ChangesResponse;
+import com.autoapi.client.model.StringPool;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 
@@ -15,10 +19,19 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -163,6 +176,29 @@ class AutoApiClientTest {
         assertEquals("GET", lastMethod);
     }
 
+    @Test
+    void streamOffers_handsItemsToConsumerAndReturnsMeta() {
+        String json = "{\"meta\":{\"page\":3,\"next_page\":4,\"limit\":20},\"result\":["
+                + "{\"id\":1,\"inner_id\":\"a\",\"data\":{}},{\"id\":2,\"inner_id\":\"b\",\"data\":{}}]}";
+        mockResponse("/api/v2/encar/offers", 200, json);
+
+        List<String> ids = new ArrayList<>();
+        Meta meta = createClient().streamOffers("encar", new OffersParams().page(3), item -> ids.add(item.getInnerId()));
+
+        assertEquals(List.of("a", "b"), ids);
+        assertEquals(4, meta.getNextPage());
+        assertEquals("3", parseQuery(lastQuery).get("page"));
+    }
+
+    @Test
+    void streamOffers_throwsOnErrorStatus() {
+        mockResponse("/api/v2/encar/offers", 401, "{\"message\":\"bad key\"}");
+
+        AuthException ex = assertThrows(AuthException.class, () ->
+                createClient().streamOffers("encar", new OffersParams().page(1), item -> { }));
+        assertEquals("bad key", ex.getMessage());
+    }
+
     // ── getOffer ─────────────────────────────────────────────────────────
 
     @Test
@@ -190,6 +226,68 @@ class AutoApiClientTest {
         assertEquals("test-api-key", params.get("api_key"));
     }
 
+    // ── getOffersByIds ───────────────────────────────────────────────────
+
+    private void mockOfferEcho(String path) {
+        server.createContext(path, exchange -> {
+            captureRequest(exchange);
+            String innerId = parseQuery(exchange.getRequestURI().getRawQuery()).get("inner_id");
+            int status = "missing".equals(innerId) ? 404 : 200;
+            if ("slow-broken".equals(innerId)) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                status = 500;
+            }
+            String json = "{\"result\":[{\"id\":1,\"inner_id\":\"" + innerId + "\",\"data\":{}}],"
+                    + "\"meta\":{\"page\":1,\"next_page\":0,\"limit\":1}}";
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @Test
+    void getOffersByIds_returnsResultsInInputOrder() {
+        mockOfferEcho("/api/v2/encar/offer");
+
+        Map<String, OffersResponse> result = createClient().getOffersByIds("encar",
+                List.of("3", "1", "2", "1"), 2);
+
+        assertEquals(List.of("3", "1", "2"), new ArrayList<>(result.keySet()));
+        result.forEach((id, resp) -> assertEquals(id, resp.getResult().get(0).getInnerId()));
+    }
+
+    @Test
+    void getOffersByIds_rethrowsApiException() {
+        mockOfferEcho("/api/v2/encar/offer");
+
+        ApiException ex = assertThrows(ApiException.class, () ->
+                createClient().getOffersByIds("encar", List.of("1", "missing")));
+
+        assertEquals(404, ex.getStatusCode());
+    }
+
+    @Test
+    void getOffersByIds_rethrowsFirstFailureToOccur() {
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        mockOfferEcho("/api/v2/encar/offer");
+        AutoApiClient client = createClient();
+
+        ApiException ex = assertThrows(ApiException.class, () ->
+                client.getOffersByIds("encar", List.of("slow-broken", "missing", "1", "2"), 2));
+
+        // "missing" fails long before "slow-broken" answers, although it comes later in the list
+        assertEquals(404, ex.getStatusCode());
+        // The shared lookup threads stay usable after a failed call
+        assertEquals(2, client.getOffersByIds("encar", List.of("1", "2"), 2).size());
+    }
+
     // ── getChangeId ──────────────────────────────────────────────────────
 
     @Test
@@ -306,6 +404,75 @@ class AutoApiClientTest {
         assertEquals("/api/v2/encar/filters", lastPath);
     }
 
+    @Test
+    void builder_appliesSettings() {
+        mockResponse("/api/v3/encar/filters", 200, "{}");
+
+        AutoApiClient.builder("builder-key").baseUrl(baseUrl + "/").apiVersion("v3").build()
+                .getFilters("encar");
+
+        assertEquals("/api/v3/encar/filters", lastPath);
+        assertEquals("builder-key", parseQuery(lastQuery).get("api_key"));
+    }
+
+    @Test
+    void seedStringPool_internsFilterValues() {
+        mockResponse("/api/v2/encar/filters", 200, "{\"brands\":[\"BMW\",\"Audi\"]}");
+        StringPool pool = new StringPool();
+
+        AutoApiClient.builder("key").baseUrl(baseUrl).stringPool(pool).build().seedStringPool("encar");
+
+        assertEquals(3, pool.size());
+    }
+
+    @Test
+    void seedStringPool_withoutPoolThrows() {
+        assertThrows(IllegalStateException.class, () -> createClient().seedStringPool("encar"));
+    }
+
+    @Test
+    void multipleBaseUrls_failOverOnNetworkError() throws IOException {
+        mockResponse("/api/v2/encar/filters", 200, "{\"brands\":[]}");
+        String deadUrl;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadUrl = "http://localhost:" + socket.getLocalPort();
+        }
+
+        AutoApiClient client = AutoApiClient.builder("key")
+                .baseUrls(deadUrl, baseUrl)
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(client.getFilters("encar"));
+        }
+    }
+
+    @Test
+    void multipleBaseUrls_failOverOnServerError() throws IOException {
+        mockResponse("/api/v2/encar/filters", 200, "{\"brands\":[]}");
+        HttpServer broken = HttpServer.create(new InetSocketAddress(0), 0);
+        AtomicInteger brokenRequests = new AtomicInteger();
+        broken.createContext("/", exchange -> {
+            brokenRequests.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        broken.start();
+        try {
+            AutoApiClient client = AutoApiClient.builder("key")
+                    .baseUrls("http://localhost:" + broken.getAddress().getPort(), baseUrl)
+                    .endpointEjection(2, Duration.ofMinutes(1))
+                    .build();
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(client.getFilters("encar"));
+            }
+            // Ejected after two server errors, both retried on the healthy endpoint
+            assertTrue(brokenRequests.get() <= 2, "requests: " + brokenRequests.get());
+        } finally {
+            broken.stop(0);
+        }
+    }
+
     // ── Error handling ───────────────────────────────────────────────────
 
     @Test
@@ -382,4 +549,136 @@ class AutoApiClientTest {
         assertEquals(500, ex.getStatusCode());
         assertEquals("API error: 500", ex.getMessage());
     }
+
+    // ── Circuit breaker and in-flight limit ──────────────────────────────
+
+    @Test
+    void circuitBreaker_opensAfterFailuresAndFailsFast() {
+        AtomicInteger calls = new AtomicInteger();
+        server.createContext("/api/v2/encar/offers", exchange -> {
+            calls.incrementAndGet();
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        mockResponse("/api/v2/mobilede/offers", 200, "{\"result\":[],\"meta\":{\"page\":1,\"next_page\":0,\"limit\":20}}");
+        AutoApiClient client = AutoApiClient.builder("key").baseUrl(baseUrl)
+                .circuitBreaker(2, Duration.ofMinutes(1)).build();
+
+        assertThrows(ApiException.class, () -> client.getOffers("encar", null));
+        assertThrows(ApiException.class, () -> client.getOffers("encar", null));
+        CircuitOpenException ex = assertThrows(CircuitOpenException.class, () -> client.getOffers("encar", null));
+
+        assertEquals(0, ex.getStatusCode());
+        assertEquals(2, calls.get());
+        // Other sources are unaffected
+        assertNotNull(client.getOffers("mobilede", null));
+    }
+
+    @Test
+    void circuitBreaker_closesAfterSuccessfulProbe() {
+        AtomicInteger status = new AtomicInteger(500);
+        server.createContext("/api/v2/encar/filters", exchange -> {
+            byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        AutoApiClient client = AutoApiClient.builder("key").baseUrl(baseUrl)
+                .circuitBreaker(1, Duration.ZERO).build();
+
+        assertThrows(ApiException.class, () -> client.getFilters("encar"));
+        status.set(200);
+
+        assertNotNull(client.getFilters("encar"));
+        assertNotNull(client.getFilters("encar"));
+    }
+
+    @Test
+    void clientErrors_doNotOpenCircuit() {
+        mockResponse("/api/v2/encar/filters", 404, "{\"message\":\"Not found\"}");
+        AutoApiClient client = AutoApiClient.builder("key").baseUrl(baseUrl)
+                .circuitBreaker(1, Duration.ofMinutes(1)).build();
+
+        for (int i = 0; i < 3; i++) {
+            ApiException ex = assertThrows(ApiException.class, () -> client.getFilters("encar"));
+            assertEquals(404, ex.getStatusCode());
+        }
+    }
+
+    @Test
+    void maxInFlightPerSource_failsFastWhenSaturated() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/v2/encar/filters", exchange -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        mockResponse("/api/v2/mobilede/filters", 200, "{}");
+        AutoApiClient client = AutoApiClient.builder("key").baseUrl(baseUrl).maxInFlightPerSource(1).build();
+
+        CompletableFuture<Map<String, Object>> slow = CompletableFuture.supplyAsync(() -> client.getFilters("encar"));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        assertThrows(OverloadedException.class, () -> client.getFilters("encar"));
+        assertNotNull(client.getFilters("mobilede"));
+
+        release.countDown();
+        assertNotNull(slow.get(5, TimeUnit.SECONDS));
+        assertNotNull(client.getFilters("encar"));
+    }
+
+    // ── API key pool ─────────────────────────────────────────────────────
+
+    @Test
+    void apiKeyPool_skipsRateLimitedKey() {
+        List<String> usedKeys = new ArrayList<>();
+        server.createContext("/api/v2/encar/filters", exchange -> {
+            String key = parseQuery(exchange.getRequestURI().getRawQuery()).get("api_key");
+            usedKeys.add(key);
+            int status = "key-a".equals(key) ? 429 : 200;
+            byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Retry-After", "60");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        ApiKeyPool keys = new ApiKeyPool(List.of("key-a", "key-b"));
+        AutoApiClient client = AutoApiClient.builder(keys).baseUrl(baseUrl).build();
+
+        ApiException ex = assertThrows(ApiException.class, () -> client.getFilters("encar"));
+        assertEquals(429, ex.getStatusCode());
+        for (int i = 0; i < 3; i++) {
+            client.getFilters("encar");
+        }
+
+        assertEquals(List.of("key-a", "key-b", "key-b", "key-b"), usedKeys);
+        assertEquals(1, client.getKeyUsage().get(0).getRateLimited());
+        assertEquals(3, client.getKeyUsage().get(1).getRequests());
+    }
+
+    @Test
+    void apiKeyPool_usesHeaderForPost() {
+        mockResponse("/api/v1/offer/info", 200, "{}");
+        AutoApiClient client = AutoApiClient.builder(new ApiKeyPool(List.of("key-a", "key-b")))
+                .baseUrl(baseUrl).build();
+
+        client.getOfferByUrl("https://example.com/1");
+        assertEquals("key-a", lastHeaders.get("x-api-key"));
+        client.getOfferByUrl("https://example.com/2");
+        assertEquals("key-b", lastHeaders.get("x-api-key"));
+    }
 }
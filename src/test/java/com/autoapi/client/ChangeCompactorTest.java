@@ -0,0 +1,106 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.ChangesResponse;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCompactorTest {
+
+    private static ChangeItem item(int id, String innerId, String type, String price) {
+        JsonObject data = new JsonObject();
+        if (price != null) {
+            data.addProperty("price", price);
+        }
+        return new ChangeItem(id, innerId, type, "2025-01-15 10:00:00", data);
+    }
+
+    @Test
+    void addedThenRemoved_emitsNothing() {
+        List<ChangeItem> out = ChangeCompactor.compact(List.of(
+                item(1, "a", "added", "100"),
+                item(2, "a", "changed", "90"),
+                item(3, "a", "removed", null)));
+
+        assertTrue(out.isEmpty());
+    }
+
+    @Test
+    void repeatedChanges_keepLatestData() {
+        List<ChangeItem> out = ChangeCompactor.compact(List.of(
+                item(1, "a", "changed", "100"),
+                item(2, "a", "changed", "90"),
+                item(3, "a", "changed", "80")));
+
+        assertEquals(1, out.size());
+        assertEquals(3, out.get(0).getId());
+        assertEquals("80", out.get(0).getData().getAsJsonObject().get("price").getAsString());
+    }
+
+    @Test
+    void addedThenChanged_emitsAddedWithLatestData() {
+        List<ChangeItem> out = ChangeCompactor.compact(List.of(
+                item(1, "a", "added", "100"),
+                item(2, "a", "changed", "95")));
+
+        assertEquals(1, out.size());
+        assertEquals("added", out.get(0).getChangeType());
+        assertEquals(2, out.get(0).getId());
+        assertEquals("95", out.get(0).getData().getAsJsonObject().get("price").getAsString());
+    }
+
+    @Test
+    void changedThenRemoved_emitsRemoved() {
+        List<ChangeItem> out = ChangeCompactor.compact(List.of(
+                item(1, "a", "changed", "100"),
+                item(2, "a", "removed", null)));
+
+        assertEquals(1, out.size());
+        assertEquals("removed", out.get(0).getChangeType());
+    }
+
+    @Test
+    void removedThenAdded_emitsChanged() {
+        List<ChangeItem> out = ChangeCompactor.compact(List.of(
+                item(1, "a", "removed", null),
+                item(2, "a", "added", "70")));
+
+        assertEquals(1, out.size());
+        assertEquals("changed", out.get(0).getChangeType());
+    }
+
+    @Test
+    void output_isOrderedByLastEvent() {
+        List<ChangeItem> out = ChangeCompactor.compact(List.of(
+                item(1, "a", "changed", "1"),
+                item(2, "b", "changed", "2"),
+                item(3, "a", "changed", "3")));
+
+        assertEquals(List.of("b", "a"), List.of(out.get(0).getInnerId(), out.get(1).getInnerId()));
+    }
+
+    @Test
+    void accept_emitsOncePerPageSpan() {
+        Gson gson = new Gson();
+        ChangesResponse first = gson.fromJson("{\"result\":[{\"id\":1,\"inner_id\":\"a\",\"change_type\":\"added\",\"data\":{}}],"
+                + "\"meta\":{\"cur_change_id\":1,\"next_change_id\":2,\"limit\":50}}", ChangesResponse.class);
+        ChangesResponse second = gson.fromJson("{\"result\":[{\"id\":2,\"inner_id\":\"a\",\"change_type\":\"removed\",\"data\":{}},"
+                + "{\"id\":3,\"inner_id\":\"b\",\"change_type\":\"added\",\"data\":{}}],"
+                + "\"meta\":{\"cur_change_id\":2,\"next_change_id\":4,\"limit\":50}}", ChangesResponse.class);
+
+        ChangeCompactor compactor = new ChangeCompactor(2);
+
+        assertTrue(compactor.accept(first).isEmpty());
+        assertEquals(1, compactor.pendingCount());
+        List<ChangeItem> out = compactor.accept(second);
+        assertEquals(1, out.size());
+        assertEquals("b", out.get(0).getInnerId());
+        assertEquals(0, compactor.pendingCount());
+    }
+}
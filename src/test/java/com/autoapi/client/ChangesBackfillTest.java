@@ -0,0 +1,153 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangesBackfillTest {
+
+    // Feed of change ids 1..99 paged by 10; each day starts 30 ids after the previous one
+    private static final Map<String, Integer> DAY_START = Map.of(
+            "2025-01-01", 1, "2025-01-02", 31, "2025-01-03", 61, "2025-01-04", 91);
+    private static final int HEAD = 100;
+
+    private HttpServer server;
+    private AutoApiClient client;
+    private final Set<Integer> requestedChangeIds = ConcurrentHashMap.newKeySet();
+    private volatile int failAt = -1;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/api/v2/encar/change_id", exchange ->
+                respond(exchange, 200, "{\"change_id\":" + DAY_START.get(param(exchange, "date")) + "}"));
+        server.createContext("/api/v2/encar/changes", exchange -> {
+            int from = Integer.parseInt(param(exchange, "change_id"));
+            requestedChangeIds.add(from);
+            if (from == failAt) {
+                respond(exchange, 500, "{\"message\":\"boom\"}");
+                return;
+            }
+            StringBuilder items = new StringBuilder();
+            int next = from;
+            for (int id = from; id < Math.min(from + 10, HEAD); id++) {
+                if (items.length() > 0) items.append(',');
+                items.append("{\"id\":").append(id).append(",\"inner_id\":\"o").append(id)
+                        .append("\",\"change_type\":\"changed\",\"data\":{}}");
+                next = id + 1;
+            }
+            respond(exchange, 200, "{\"result\":[" + items + "],\"meta\":{\"cur_change_id\":" + from
+                    + ",\"next_change_id\":" + next + ",\"limit\":10}}");
+        });
+        server.start();
+        client = new AutoApiClient("key", "http://localhost:" + server.getAddress().getPort(), "v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static String param(HttpExchange exchange, String name) {
+        return exchange.getRequestURI().getQuery().replaceAll(".*(?:^|&)" + name + "=([^&]*).*", "$1");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Test
+    void run_deliversAllItemsInChangeIdOrder() {
+        List<Integer> ids = new ArrayList<>();
+
+        long count = new ChangesBackfill(client, "encar").workers(3).bufferedPages(1)
+                .run(LocalDate.parse("2025-01-01"), LocalDate.parse("2025-01-04"), item -> ids.add(item.getId()));
+
+        assertEquals(90, count);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+    }
+
+    @Test
+    void run_stopsEachRangeAtItsUpperBound() {
+        List<ChangeItem> items = new ArrayList<>();
+
+        new ChangesBackfill(client, "encar")
+                .run(LocalDate.parse("2025-01-02"), LocalDate.parse("2025-01-03"), items::add);
+
+        assertEquals(31, items.get(0).getId());
+        assertEquals(60, items.get(items.size() - 1).getId());
+        assertEquals(30, items.size());
+    }
+
+    @Test
+    void run_resumesFromCheckpoint(@TempDir Path dir) {
+        Path file = dir.resolve("backfill.properties");
+        failAt = 41;
+
+        List<Integer> first = new ArrayList<>();
+        assertThrows(RuntimeException.class, () -> new ChangesBackfill(client, "encar")
+                .workers(1).checkpoint(ChangesBackfill.fileCheckpoint(file))
+                .run(LocalDate.parse("2025-01-01"), LocalDate.parse("2025-01-04"), item -> first.add(item.getId())));
+        assertEquals(40, first.size());
+
+        failAt = -1;
+        requestedChangeIds.clear();
+        List<Integer> second = new ArrayList<>();
+        new ChangesBackfill(client, "encar").workers(1).checkpoint(ChangesBackfill.fileCheckpoint(file))
+                .run(LocalDate.parse("2025-01-01"), LocalDate.parse("2025-01-04"), item -> second.add(item.getId()));
+
+        assertEquals(41, second.get(0));
+        assertEquals(50, second.size());
+        // Completed pages of the first run are not fetched again
+        assertTrue(requestedChangeIds.stream().allMatch(id -> id >= 41), requestedChangeIds.toString());
+    }
+
+    @Test
+    void fileCheckpoint_defersWritesUntilIntervalOrFlush(@TempDir Path dir) {
+        Path file = dir.resolve("backfill.properties");
+        ChangesBackfill.Checkpoint checkpoint = ChangesBackfill.fileCheckpoint(file, Duration.ofHours(1));
+
+        checkpoint.save(1, 11);
+        checkpoint.save(1, 21);
+        assertFalse(Files.exists(file));
+
+        checkpoint.flush();
+        assertEquals(21, ChangesBackfill.fileCheckpoint(file).load(1));
+        assertFalse(Files.exists(dir.resolve("backfill.properties.tmp")));
+    }
+
+    @Test
+    void run_emptyPeriodDeliversNothing() {
+        assertEquals(0, new ChangesBackfill(client, "encar")
+                .run(LocalDate.parse("2025-01-02"), LocalDate.parse("2025-01-02"), item -> fail()));
+    }
+}
@@ -0,0 +1,290 @@
+package com.autoapi.client;
+
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.ChangeItem;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangesFeedHubTest {
+
+    private static final int HEAD = 200;
+
+    private HttpServer server;
+    private AutoApiClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+    /** When set, change {@code relistAt} removes offer o1 and the next one adds it again. */
+    private volatile int relistAt;
+    /** Number of upcoming requests answered with a truncated body. */
+    private final AtomicInteger malformed = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/api/v2/encar/changes", exchange -> {
+            requests.incrementAndGet();
+            int from = Integer.parseInt(exchange.getRequestURI().getQuery().replaceAll(".*change_id=(\\d+).*", "$1"));
+            StringBuilder items = new StringBuilder();
+            int next = from;
+            for (int id = from; id < Math.min(from + 20, HEAD + 1); id++) {
+                if (items.length() > 0) items.append(',');
+                boolean relist = relistAt > 0 && (id == relistAt || id == relistAt + 1);
+                items.append("{\"id\":").append(id).append(",\"inner_id\":\"o").append(relist ? 1 : id)
+                        .append("\",\"change_type\":\"").append(id == relistAt ? "removed" : "added")
+                        .append("\",\"data\":{}}");
+                next = id + 1;
+            }
+            String body = "{\"result\":[" + items + "],\"meta\":{\"cur_change_id\":" + from
+                    + ",\"next_change_id\":" + next + ",\"limit\":20}}";
+            if (malformed.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                body = body.substring(0, body.length() / 2);
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        client = new AutoApiClient("key", "http://localhost:" + server.getAddress().getPort(), "v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static List<Integer> drain(ChangesFeedHub.Subscription subscription, long delayMillis) throws InterruptedException {
+        List<Integer> ids = new ArrayList<>();
+        while (ids.size() < HEAD) {
+            ChangeItem item = subscription.poll(5, TimeUnit.SECONDS);
+            assertNotNull(item, "timed out after " + ids.size() + " items");
+            ids.add(item.getId());
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+        }
+        return ids;
+    }
+
+    private static void assertSequence(List<Integer> ids) {
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+    }
+
+    @Test
+    void subscribers_shareOneFetch() throws InterruptedException {
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1).pollInterval(Duration.ofMillis(50))) {
+            ChangesFeedHub.Subscription a = hub.subscribe();
+            ChangesFeedHub.Subscription b = hub.subscribe();
+            hub.start();
+
+            assertSequence(drain(a, 0));
+            assertSequence(drain(b, 0));
+            assertEquals(HEAD + 1, hub.getCursor());
+        }
+        // 10 pages of 20 items plus polls at the head; far fewer than one loop per subscriber
+        assertTrue(requests.get() < 20, "requests: " + requests.get());
+    }
+
+    @Test
+    void slowSubscriber_catchesUpFromReplay() throws InterruptedException {
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1).pollInterval(Duration.ofMillis(50))) {
+            ChangesFeedHub.Subscription fast = hub.subscribe();
+            ChangesFeedHub.Subscription slow = hub.subscribe(25);
+            hub.start();
+
+            assertSequence(drain(fast, 0));
+            assertTrue(slow.isDetached());
+            assertSequence(drain(slow, 0));
+            assertEquals(HEAD, slow.getLastChangeId());
+        }
+    }
+
+    @Test
+    void spillLog_recordsFeedAndReplaysLaggingSubscriber(@TempDir Path dir) throws InterruptedException {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir);
+             ChangesFeedHub hub = new ChangesFeedHub(client, "encar", log.getNextChangeId(1))
+                     .pollInterval(Duration.ofMillis(50)).spillLog(log)) {
+            ChangesFeedHub.Subscription slow = hub.subscribe(25);
+            hub.start();
+
+            assertSequence(drain(slow, 0));
+            int before = requests.get();
+            assertEquals(HEAD, log.getLastChangeId());
+            assertEquals(HEAD, log.read(1, 1000).size());
+            // Catching up came from the log, not the API: only the fetcher's head polls remain
+            assertTrue(before < 20, "requests: " + before);
+        }
+    }
+
+    @Test
+    void seenSet_dropsAddsForKnownOffers() throws InterruptedException {
+        SeenSet seen = SeenSet.exact(100);
+        for (int id = 1; id <= HEAD; id += 2) {
+            seen.add("encar", "o" + id);
+        }
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1)
+                .pollInterval(Duration.ofMillis(50)).seenSet(seen)) {
+            ChangesFeedHub.Subscription subscription = hub.subscribe();
+            hub.start();
+
+            for (int expected = 2; expected <= HEAD; expected += 2) {
+                assertEquals(expected, subscription.poll(5, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(HEAD, seen.size());
+        }
+    }
+
+    @Test
+    void malformedPage_isReportedAndRetried() throws InterruptedException {
+        malformed.set(2);
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1).pollInterval(Duration.ofMillis(50))) {
+            ChangesFeedHub.Subscription subscription = hub.subscribe();
+            hub.start();
+
+            // Each failure stays reported for a poll interval before the retry
+            ApiException error = null;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (error == null && System.nanoTime() < deadline) {
+                error = hub.getLastError();
+                Thread.sleep(1);
+            }
+            assertNotNull(error);
+            assertEquals(0, error.getStatusCode());
+
+            assertSequence(drain(subscription, 0));
+            assertNull(hub.getLastError());
+        }
+    }
+
+    @Test
+    void seenSet_passesAddAfterRemoval() throws InterruptedException {
+        relistAt = 100;
+        SeenSet seen = SeenSet.exact(100);
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1)
+                .pollInterval(Duration.ofMillis(50)).seenSet(seen)) {
+            ChangesFeedHub.Subscription subscription = hub.subscribe();
+            hub.start();
+
+            // o1 is added at 1, removed at 100 and relisted at 101
+            assertSequence(drain(subscription, 0));
+        }
+    }
+
+    @Test
+    void seenSet_forgetsRemovalsBeyondTheLimit() throws InterruptedException {
+        relistAt = 100;
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1)
+                .pollInterval(Duration.ofMillis(50)).seenSet(SeenSet.exact(100)).maxTrackedRemovals(0)) {
+            ChangesFeedHub.Subscription subscription = hub.subscribe();
+            hub.start();
+
+            List<Integer> ids = new ArrayList<>();
+            for (ChangeItem item; (item = subscription.poll(500, TimeUnit.MILLISECONDS)) != null; ) {
+                ids.add(item.getId());
+            }
+            assertEquals(HEAD - 1, ids.size());
+            assertFalse(ids.contains(101));
+        }
+    }
+
+    @Test
+    void withoutReplay_fullBufferAppliesBackpressure() throws InterruptedException {
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1)
+                .pollInterval(Duration.ofMillis(50)).replay(null)) {
+            ChangesFeedHub.Subscription slow = hub.subscribe(25);
+            hub.start();
+
+            assertSequence(drain(slow, 1));
+            assertFalse(slow.isDetached());
+        }
+    }
+
+    @Test
+    void closedSubscription_stopsReceiving() throws InterruptedException {
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1).pollInterval(Duration.ofMillis(50))) {
+            ChangesFeedHub.Subscription subscription = hub.subscribe();
+            subscription.close();
+            hub.start();
+
+            assertNull(subscription.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void withoutReplay_closingSlowSubscriberReleasesFetcher() throws InterruptedException {
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1)
+                .pollInterval(Duration.ofMillis(50)).replay(null)) {
+            ChangesFeedHub.Subscription slow = hub.subscribe(5);
+            ChangesFeedHub.Subscription fast = hub.subscribe();
+            hub.start();
+
+            // The fetcher fills the slow buffer and waits; closing the subscription must release it
+            assertEquals(1, slow.poll(5, TimeUnit.SECONDS).getId());
+            Thread.sleep(100);
+            slow.close();
+
+            assertSequence(drain(fast, 0));
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () -> hub.subscribe().close());
+        }
+    }
+
+    @Test
+    void detachedPoll_waitsForNextPageInsteadOfRereadingReplay() throws InterruptedException {
+        AtomicInteger reads = new AtomicInteger();
+        try (ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1)
+                .pollInterval(Duration.ofMillis(50))
+                .replay(from -> {
+                    reads.incrementAndGet();
+                    return List.of();
+                })) {
+            ChangesFeedHub.Subscription slow = hub.subscribe(1);
+            hub.start();
+            while (hub.getCursor() <= HEAD) {
+                Thread.sleep(10);
+            }
+            while (slow.poll(0, TimeUnit.MILLISECONDS) != null) {
+                // drain what was buffered before detaching
+            }
+            assertTrue(slow.isDetached());
+
+            reads.set(0);
+            long start = System.nanoTime();
+            assertNull(slow.poll(300, TimeUnit.MILLISECONDS));
+
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+            assertEquals(1, reads.get());
+        }
+    }
+
+    @Test
+    void close_waitsForFetcherToStop() throws InterruptedException {
+        ChangesFeedHub hub = new ChangesFeedHub(client, "encar", 1).pollInterval(Duration.ofMillis(10)).start();
+        Thread.sleep(100);
+        hub.close();
+        int after = requests.get();
+
+        Thread.sleep(200);
+        assertEquals(after, requests.get());
+    }
+}
@@ -0,0 +1,160 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangesSpillLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<ChangeItem> items(int from, int to) {
+        List<ChangeItem> items = new ArrayList<>();
+        for (int id = from; id <= to; id++) {
+            JsonObject data = new JsonObject();
+            data.addProperty("price", id * 10);
+            items.add(new ChangeItem(id, "o" + id, "changed", "2025-01-15", data));
+        }
+        return items;
+    }
+
+    private static List<Integer> ids(List<ChangeItem> items) {
+        return items.stream().map(ChangeItem::getId).collect(Collectors.toList());
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void readsFromAnyOffsetAcrossSegments() throws IOException {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir).segmentBytes(4096)) {
+            log.append(items(1, 1000));
+
+            assertTrue(segmentCount() > 5);
+            assertEquals(List.of(1, 2, 3), ids(log.read(1, 3)));
+            assertEquals(List.of(500, 501), ids(log.read(500, 2)));
+            assertEquals(ids(items(990, 1000)), ids(log.read(990, 100)));
+            assertTrue(log.read(1001).isEmpty());
+
+            ChangeItem item = log.read(777, 1).get(0);
+            assertEquals("o777", item.getInnerId());
+            assertEquals(7770, item.getData().getAsJsonObject().get("price").getAsInt());
+        }
+    }
+
+    @Test
+    void skipsAlreadyAppendedItems() {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir)) {
+            log.append(items(1, 10));
+            log.append(items(5, 15));
+
+            assertEquals(ids(items(1, 15)), ids(log.read(1)));
+            assertEquals(15, log.getLastChangeId());
+            assertEquals(16, log.getNextChangeId(1));
+        }
+    }
+
+    @Test
+    void reopen_truncatesTornRecord() throws IOException {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir).segmentBytes(4096)) {
+            log.append(items(1, 100));
+        }
+        Path newest;
+        try (Stream<Path> files = Files.list(dir)) {
+            newest = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        long size = Files.size(newest);
+        // A record header promising more bytes than were written before the crash
+        Files.write(newest, new byte[]{0, 0, 1, 0, 1, 2, 3, 4, 0, 0, 0, 101, 42}, StandardOpenOption.APPEND);
+
+        try (ChangesSpillLog log = new ChangesSpillLog(dir)) {
+            assertEquals(size, Files.size(newest));
+            assertEquals(100, log.getLastChangeId());
+            log.append(items(101, 110));
+            assertEquals(ids(items(95, 110)), ids(log.read(95)));
+        }
+    }
+
+    @Test
+    void retention_dropsOldestSegments() throws IOException {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir).segmentBytes(4096).retention(null, 16 * 1024)) {
+            log.append(items(1, 2000));
+
+            assertTrue(log.sizeBytes() <= 16 * 1024 + 4096);
+            assertTrue(log.getFirstChangeId() > 1);
+            // Reading a dropped change_id starts at the oldest one kept
+            List<ChangeItem> read = log.read(1, 1);
+            assertEquals(log.getFirstChangeId(), read.get(0).getId());
+            assertEquals(2000, log.getLastChangeId());
+        }
+    }
+
+    @Test
+    void memoryMapped_readsSameItems() {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir).segmentBytes(4096)) {
+            log.append(items(1, 500));
+        }
+        try (ChangesSpillLog log = new ChangesSpillLog(dir).memoryMapped(true)) {
+            assertEquals(ids(items(1, 500)), ids(log.read(1, 1000)));
+            assertEquals(ids(items(250, 260)), ids(log.read(250, 11)));
+        }
+    }
+
+    @Test
+    void interruptedWriterOrReader_leavesLogUsable() throws InterruptedException {
+        try (ChangesSpillLog log = new ChangesSpillLog(dir)) {
+            log.append(items(1, 10));
+
+            // An interrupted thread's channel I/O fails with ClosedByInterruptException and closes the channel
+            List<Throwable> failures = new ArrayList<>();
+            Thread writer = new Thread(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    log.append(items(11, 20));
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            });
+            writer.start();
+            writer.join();
+            Thread reader = new Thread(() -> {
+                Thread.currentThread().interrupt();
+                try {
+                    log.read(1, 5);
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            });
+            reader.start();
+            reader.join();
+            assertEquals(2, failures.size());
+
+            log.append(items(11, 20));
+            assertEquals(ids(items(1, 20)), ids(log.read(1, 100)));
+        }
+    }
+
+    @Test
+    void segmentBytes_isCappedSoSegmentsCanBeMapped() {
+        ChangesSpillLog log = new ChangesSpillLog(dir);
+        assertThrows(IllegalArgumentException.class, () -> log.segmentBytes(3L << 30));
+        log.segmentBytes(1L << 30).close();
+    }
+}
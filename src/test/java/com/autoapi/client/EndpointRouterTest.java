@@ -0,0 +1,93 @@
+package com.autoapi.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointRouterTest {
+
+    @Test
+    void prefersLowerLatencyEndpoint() {
+        EndpointRouter router = new EndpointRouter(List.of("http://a", "http://b"), 3, Duration.ofSeconds(10));
+        EndpointRouter.Endpoint a = router.select(null);
+        EndpointRouter.Endpoint b = router.select(a);
+        router.success(a, 50_000_000);
+        router.success(b, 1_000_000);
+
+        for (int i = 0; i < 20; i++) {
+            EndpointRouter.Endpoint chosen = router.select(null);
+            assertEquals(b.baseUrl, chosen.baseUrl);
+            router.success(chosen, 1_000_000);
+        }
+    }
+
+    @Test
+    void ejectsAfterConsecutiveFailures() {
+        EndpointRouter router = new EndpointRouter(List.of("http://a", "http://b"), 2, Duration.ofMinutes(1));
+        EndpointRouter.Endpoint a = router.select(null);
+        EndpointRouter.Endpoint other = router.select(a);
+        router.success(other, 1);
+
+        router.failure(a);
+        router.failure(router.select(other));
+
+        assertTrue(router.isEjected(a.baseUrl));
+        for (int i = 0; i < 10; i++) {
+            EndpointRouter.Endpoint chosen = router.select(null);
+            assertEquals(other.baseUrl, chosen.baseUrl);
+            router.success(chosen, 1);
+        }
+        assertNull(router.select(other));
+    }
+
+    @Test
+    void probesEjectedEndpointOutOfBand() {
+        EndpointRouter router = new EndpointRouter(List.of("http://a", "http://b"), 1, Duration.ZERO);
+        EndpointRouter.Endpoint a = router.select(null);
+        router.failure(a);
+        assertTrue(router.isEjected(a.baseUrl));
+
+        // Regular traffic stays on the healthy endpoint while the probe is due
+        assertNotEquals(a.baseUrl, router.select(null).baseUrl);
+        EndpointRouter.Endpoint probe = router.probeDue();
+        assertEquals(a.baseUrl, probe.baseUrl);
+        // Only one probe at a time
+        assertNull(router.probeDue());
+
+        router.probed(probe, true);
+        assertFalse(router.isEjected(a.baseUrl));
+    }
+
+    @Test
+    void failedProbeEjectsAgain() {
+        EndpointRouter router = new EndpointRouter(List.of("http://a", "http://b"), 1, Duration.ofMinutes(1));
+        EndpointRouter.Endpoint a = router.select(null);
+        router.failure(a);
+
+        assertNull(router.probeDue());
+    }
+
+    @Test
+    void probeCarriesTrafficWhenNothingIsHealthy() {
+        EndpointRouter router = new EndpointRouter(List.of("http://a", "http://b"), 1, Duration.ZERO);
+        EndpointRouter.Endpoint first = router.select(null);
+        router.failure(first);
+        EndpointRouter.Endpoint second = router.select(null);
+        router.failure(second);
+
+        EndpointRouter.Endpoint chosen = router.select(null);
+        router.success(chosen, 1);
+        assertFalse(router.isEjected(chosen.baseUrl));
+    }
+
+    @Test
+    void singleEjectedEndpointIsStillUsed() {
+        EndpointRouter router = new EndpointRouter(List.of("http://a/"), 1, Duration.ofMinutes(1));
+        router.failure(router.select(null));
+
+        assertEquals("http://a", router.select(null).baseUrl);
+    }
+}
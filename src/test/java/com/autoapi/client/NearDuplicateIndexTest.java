@@ -0,0 +1,120 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest {
+
+    private static JsonObject offer(String mark, String model, int year, int km, int price, String... images) {
+        JsonObject data = new JsonObject();
+        data.addProperty("mark", mark);
+        data.addProperty("model", model);
+        data.addProperty("year", String.valueOf(year));
+        data.addProperty("km_age", km);
+        data.addProperty("price", String.valueOf(price));
+        JsonArray array = new JsonArray();
+        for (String image : images) {
+            array.add(image);
+        }
+        data.add("images", array);
+        return data;
+    }
+
+    @Test
+    void findsSameCarAcrossSources() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("mobilede", "m1", offer("Mercedes-Benz", "E 220", 2019, 61_000, 31_900,
+                "https://img.mobile.de/a/9f8e7d.jpg?rule=big"));
+        index.put("mobilede", "m2", offer("BMW", "X5", 2021, 20_000, 65_000));
+        index.put("mobilede", "m3", offer("Kia", "Sorento", 2019, 61_000, 31_900));
+
+        JsonObject listing = offer("mercedes benz", "E220", 2019, 61_400, 31_500,
+                "https://cdn.autoscout24.net/9F8E7D.webp");
+        List<NearDuplicateIndex.Match> matches = index.findMatches(listing);
+
+        assertFalse(matches.isEmpty());
+        assertEquals("m1", matches.get(0).getInnerId());
+        assertEquals("mobilede", matches.get(0).getSource());
+        assertTrue(matches.get(0).getSimilarity() > 0.7, matches.toString());
+        assertTrue(matches.stream().noneMatch(m -> m.getInnerId().equals("m2")));
+    }
+
+    @Test
+    void manyDifferentImages_doNotHideDuplicate() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        String[] mobile = new String[10];
+        String[] autoscout = new String[10];
+        for (int i = 0; i < 10; i++) {
+            mobile[i] = "https://img.mobile.de/a/m" + i + ".jpg";
+            autoscout[i] = "https://cdn.autoscout24.net/listing/" + (9000 + i) + ".webp";
+        }
+        index.put("mobilede", "m1", offer("Volkswagen", "Golf", 2020, 45_000, 18_900, mobile));
+
+        List<NearDuplicateIndex.Match> matches = index.findMatches(
+                offer("Volkswagen", "Golf", 2020, 45_300, 18_700, autoscout));
+
+        assertEquals(1, matches.size(), matches.toString());
+        assertEquals("m1", matches.get(0).getInnerId());
+    }
+
+    @Test
+    void sharedImagesRaiseSimilarity() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("encar", "e1", offer("Kia", "K5", 2020, 40_000, 2_000, "a.jpg", "b.jpg", "c.jpg"));
+        index.put("encar", "e2", offer("Kia", "K5", 2020, 40_000, 2_000, "x.jpg", "y.jpg", "z.jpg"));
+
+        List<NearDuplicateIndex.Match> matches = index.findMatches(
+                offer("Kia", "K5", 2020, 40_000, 2_000, "https://cdn/b.jpg", "https://cdn/a.jpg", "https://cdn/d.jpg"));
+
+        assertEquals(2, matches.size(), matches.toString());
+        assertEquals("e1", matches.get(0).getInnerId());
+        assertEquals(0.5, matches.get(0).getImageSimilarity(), 1e-9);
+        assertEquals(0.0, matches.get(1).getImageSimilarity(), 1e-9);
+    }
+
+    @Test
+    void differentCarsDoNotMatch() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("encar", "e1", offer("Hyundai", "Sonata", 2018, 80_000, 1_500));
+        index.put("encar", "e2", offer("Hyundai", "Sonata", 2022, 10_000, 2_900));
+
+        assertTrue(index.findMatches("encar", "e1").isEmpty());
+    }
+
+    @Test
+    void changesFeed_updatesIndex() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        index.put("encar", "e1", offer("Kia", "K5", 2020, 40_000, 2_000));
+        index.accept("che168", new ChangeItem(1, "c1", "added", null, offer("Kia", "K5", 2020, 40_500, 2_010)));
+
+        assertEquals("c1", index.findMatches("encar", "e1").get(0).getInnerId());
+
+        index.accept("che168", new ChangeItem(2, "c1", "changed", null, offer("Kia", "K5", 2015, 150_000, 700)));
+        assertTrue(index.findMatches("encar", "e1").isEmpty());
+
+        index.accept("che168", new ChangeItem(3, "c1", "removed", null, null));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void manyOffers_candidateLookupStaysSelective() {
+        NearDuplicateIndex index = new NearDuplicateIndex();
+        String[] marks = {"BMW", "Audi", "Kia", "Hyundai", "Toyota"};
+        for (int i = 0; i < 5_000; i++) {
+            index.put("encar", "e" + i, offer(marks[i % 5], "M" + (i % 37), 2005 + i % 19,
+                    (i * 7919) % 300_000, 500 + (i * 104729) % 9_000));
+        }
+        index.put("autoscout24", "dup", offer("Audi", "M11", 2020, 123_456, 4_321));
+
+        List<NearDuplicateIndex.Match> matches = index.findMatches(offer("AUDI", "m11", 2020, 124_000, 4_300));
+        assertEquals("dup", matches.get(0).getInnerId());
+        assertTrue(matches.size() < 20, "matches: " + matches.size());
+    }
+}
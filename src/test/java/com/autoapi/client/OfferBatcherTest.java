@@ -0,0 +1,133 @@
+package com.autoapi.client;
+
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.OffersResponse;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfferBatcherTest {
+
+    private HttpServer server;
+    private AutoApiClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/api/v2/encar/offer", exchange -> {
+            requests.incrementAndGet();
+            String innerId = exchange.getRequestURI().getQuery().replaceAll(".*inner_id=([^&]*).*", "$1");
+            int status = "missing".equals(innerId) ? 404 : 200;
+            byte[] bytes = ("{\"result\":[{\"id\":1,\"inner_id\":\"" + innerId + "\",\"data\":{}}],"
+                    + "\"meta\":{\"page\":1,\"next_page\":0,\"limit\":1}}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        client = new AutoApiClient("test-api-key", "http://localhost:" + server.getAddress().getPort(), "v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void getOffer_returnsResult() {
+        try (OfferBatcher batcher = new OfferBatcher(client)) {
+            OffersResponse resp = batcher.getOffer("encar", "42");
+
+            assertEquals("42", resp.getResult().get(0).getInnerId());
+        }
+    }
+
+    @Test
+    void duplicateLookupsInWindow_shareOneRequest() {
+        try (OfferBatcher batcher = new OfferBatcher(client, Duration.ofMillis(200), 50, 4)) {
+            List<CompletableFuture<OffersResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(batcher.submit("encar", "7"));
+            }
+            futures.add(batcher.submit("encar", "8"));
+
+            futures.forEach(CompletableFuture::join);
+
+            assertSame(futures.get(0), futures.get(4));
+            assertEquals("8", futures.get(5).join().getResult().get(0).getInnerId());
+            assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    void fullBatch_dispatchesBeforeWindow() {
+        try (OfferBatcher batcher = new OfferBatcher(client, Duration.ofMinutes(1), 2, 2)) {
+            CompletableFuture<OffersResponse> first = batcher.submit("encar", "1");
+            CompletableFuture<OffersResponse> second = batcher.submit("encar", "2");
+
+            assertEquals("1", first.join().getResult().get(0).getInnerId());
+            assertEquals("2", second.join().getResult().get(0).getInnerId());
+        }
+    }
+
+    @Test
+    void failedLookup_failsOnlyItsFuture() {
+        try (OfferBatcher batcher = new OfferBatcher(client)) {
+            CompletableFuture<OffersResponse> ok = batcher.submit("encar", "1");
+            CompletableFuture<OffersResponse> missing = batcher.submit("encar", "missing");
+
+            assertEquals("1", ok.join().getResult().get(0).getInnerId());
+            CompletionException ex = assertThrows(CompletionException.class, missing::join);
+            assertEquals(404, ((ApiException) ex.getCause()).getStatusCode());
+        }
+    }
+
+    @Test
+    void closeDuringTimedFlush_completesEveryLookup() throws Exception {
+        for (int round = 0; round < 3; round++) {
+            OfferBatcher batcher = new OfferBatcher(client, Duration.ofMillis(20), 10_000, 8);
+            List<CompletableFuture<OffersResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                futures.add(batcher.submit("encar", String.valueOf(i)));
+            }
+            // A batch this large keeps the timed flush dispatching for a while; close in the middle
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20) + round * 100_000L;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            batcher.close();
+
+            for (CompletableFuture<OffersResponse> future : futures) {
+                assertNotNull(future.get(10, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    void closedBatcher_rejectsLookups() {
+        OfferBatcher batcher = new OfferBatcher(client);
+        batcher.close();
+
+        assertThrows(IllegalStateException.class, () -> batcher.submit("encar", "1"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.OfferData;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfferDiffTest {
+
+    private final Gson gson = new Gson();
+
+    private OfferData offer(String json) {
+        return gson.fromJson(json, OfferData.class);
+    }
+
+    @Test
+    void identicalOffers_returnEmptyList() {
+        String json = "{\"mark\":\"BMW\",\"price\":\"25000\",\"images\":[\"a.jpg\"]}";
+
+        assertTrue(OfferDiff.diff(offer(json), offer(json)).isEmpty());
+        assertTrue(OfferDiff.diff(JsonParser.parseString(json), JsonParser.parseString(json)).isEmpty());
+    }
+
+    @Test
+    void priceDrop_isClassified() {
+        List<OfferDiff.Delta> deltas = OfferDiff.diff(
+                offer("{\"mark\":\"BMW\",\"price\":\"25000\"}"),
+                offer("{\"mark\":\"BMW\",\"price\":\"23500\"}"));
+
+        assertEquals(1, deltas.size());
+        assertEquals("price", deltas.get(0).getField());
+        assertEquals(OfferDiff.Kind.PRICE_DROP, deltas.get(0).getKind());
+        assertEquals("25000", deltas.get(0).getOldValue());
+        assertEquals("23500", deltas.get(0).getNewValue());
+    }
+
+    @Test
+    void mileageAndImages_areClassified() {
+        List<OfferDiff.Delta> deltas = OfferDiff.diff(
+                offer("{\"km_age\":\"1000\",\"images\":[\"a.jpg\"],\"color\":\"red\"}"),
+                offer("{\"km_age\":\"1200\",\"images\":[\"a.jpg\",\"b.jpg\"],\"color\":\"blue\"}"));
+
+        assertEquals(3, deltas.size());
+        assertEquals(OfferDiff.Kind.MILEAGE_UPDATE, deltas.get(0).getKind());
+        assertEquals(OfferDiff.Kind.IMAGES_CHANGED, deltas.get(1).getKind());
+        assertEquals("color", deltas.get(2).getField());
+        assertEquals(OfferDiff.Kind.FIELD_CHANGED, deltas.get(2).getKind());
+    }
+
+    @Test
+    void rawJson_reportsSourceSpecificAndMissingFields() {
+        JsonElement before = JsonParser.parseString("{\"price\":100,\"vin\":\"X1\",\"gone\":true}");
+        JsonElement after = JsonParser.parseString("{\"price\":120,\"vin\":\"X1\",\"extra\":[1]}");
+
+        List<OfferDiff.Delta> deltas = OfferDiff.diff(before, after);
+
+        assertEquals(3, deltas.size());
+        assertEquals(OfferDiff.Kind.PRICE_RISE, deltas.get(0).getKind());
+        assertEquals("gone", deltas.get(1).getField());
+        assertNull(deltas.get(1).getNewValue());
+        assertEquals("extra", deltas.get(2).getField());
+        assertEquals("[1]", deltas.get(2).getNewValue());
+    }
+
+    @Test
+    void nonNumericPrice_isPlainFieldChange() {
+        List<OfferDiff.Delta> deltas = OfferDiff.diff(
+                offer("{\"price\":\"on request\"}"),
+                offer("{\"price\":\"25000\"}"));
+
+        assertEquals(OfferDiff.Kind.FIELD_CHANGED, deltas.get(0).getKind());
+    }
+
+    @Test
+    void equalPriceInAnotherNotation_isNotAChange() {
+        List<OfferDiff.Delta> deltas = OfferDiff.diff(
+                offer("{\"price\":\"25000\",\"km_age\":\"1000\"}"),
+                offer("{\"price\":\"25000.0\",\"km_age\":\"1200\"}"));
+
+        assertEquals(1, deltas.size());
+        assertEquals(OfferDiff.Kind.MILEAGE_UPDATE, deltas.get(0).getKind());
+    }
+
+    @Test
+    void overlongNumber_isNotParsed() {
+        assertEquals(123456789012345678.0, OfferDiff.number("123456789012345678"));
+        assertTrue(Double.isNaN(OfferDiff.number("1234567890123456789")));
+        assertTrue(Double.isNaN(OfferDiff.number("99999999999999999999999")));
+    }
+
+    @Test
+    void valueWithoutDigits_isNotParsed() {
+        assertTrue(Double.isNaN(OfferDiff.number(".")));
+        assertTrue(Double.isNaN(OfferDiff.number("-")));
+        assertTrue(Double.isNaN(OfferDiff.number("-.")));
+        assertEquals(0.5, OfferDiff.number(".5"));
+    }
+
+    @Test
+    void negativeNumber_isParsed() {
+        assertEquals(-1500.0, OfferDiff.number("-1500"));
+        assertEquals(-0.25, OfferDiff.number("-0.25"));
+        assertTrue(Double.isNaN(OfferDiff.number("--1")));
+        assertTrue(Double.isNaN(OfferDiff.number("1-")));
+    }
+}
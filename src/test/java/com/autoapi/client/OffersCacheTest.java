@@ -0,0 +1,161 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.autoapi.client.model.OffersParams;
+import com.autoapi.client.model.OffersResponse;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffersCacheTest {
+
+    private HttpServer server;
+    private AutoApiClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/api/v2/encar/offers", exchange -> {
+            int n = requests.incrementAndGet();
+            byte[] bytes = ("{\"result\":[{\"id\":" + n + ",\"inner_id\":\"100\",\"data\":{}},"
+                    + "{\"id\":" + n + ",\"inner_id\":\"101\",\"data\":{}}],"
+                    + "\"meta\":{\"page\":1,\"next_page\":2,\"limit\":20}}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        server.start();
+        client = new AutoApiClient("key", "http://localhost:" + server.getAddress().getPort(), "v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static OffersParams bmw() {
+        return new OffersParams().page(1).brand("BMW").priceFrom(10_000).priceTo(30_000).yearFrom(2015);
+    }
+
+    private static ChangeItem change(String innerId, String type, String data) {
+        return new ChangeItem(1, innerId, type, "2025-01-15 10:00:00", data == null ? null : JsonParser.parseString(data));
+    }
+
+    @Test
+    void repeatedQueryIsServedFromCache() {
+        OffersCache cache = new OffersCache(client);
+
+        OffersResponse first = cache.getOffers("encar", bmw());
+        OffersResponse second = cache.getOffers("encar",
+                new OffersParams().yearFrom(2015).priceTo(30_000).brand(" BMW ").priceFrom(10_000).page(1));
+
+        assertSame(first, second);
+        assertEquals(1, requests.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void equivalentQueriesShareAnEntry() {
+        OffersCache cache = new OffersCache(client);
+
+        OffersResponse first = cache.getOffers("encar", new OffersParams().page(1).brand("bmw").model("X5"));
+        OffersResponse second = cache.getOffers("encar",
+                new OffersParams().page(1).brand("BMW").model("x5").priceFrom(0).mileageFrom(0));
+
+        assertSame(first, second);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void pageAndSourceArePartOfTheKey() {
+        OffersCache cache = new OffersCache(client);
+
+        cache.getOffers("encar", bmw());
+        cache.getOffers("encar", bmw().page(2));
+
+        assertEquals(2, requests.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void expiredEntryIsRefetched() throws InterruptedException {
+        OffersCache cache = new OffersCache(client).ttl(Duration.ofMillis(50));
+
+        cache.getOffers("encar", bmw());
+        Thread.sleep(80);
+        cache.getOffers("encar", bmw());
+
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        OffersCache cache = new OffersCache(client).maxEntries(2);
+
+        cache.getOffers("encar", bmw().page(1));
+        cache.getOffers("encar", bmw().page(2));
+        cache.getOffers("encar", bmw().page(1));
+        cache.getOffers("encar", bmw().page(3));
+        assertEquals(3, requests.get());
+
+        cache.getOffers("encar", bmw().page(1));
+        assertEquals(3, requests.get());
+        cache.getOffers("encar", bmw().page(2));
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void changeToListedOfferInvalidatesItsPage() {
+        OffersCache cache = new OffersCache(client);
+        cache.getOffers("encar", bmw());
+
+        assertEquals(0, cache.invalidate("mobilede", List.of(change("101", "removed", null))));
+        assertEquals(1, cache.invalidate("encar", List.of(change("101", "removed", null))));
+
+        cache.getOffers("encar", bmw());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void addedOfferInvalidatesOnlyMatchingQueries() {
+        OffersCache cache = new OffersCache(client);
+        cache.getOffers("encar", bmw());
+        cache.getOffers("encar", bmw().page(2));
+        cache.getOffers("encar", new OffersParams().page(1).brand("Kia"));
+
+        int dropped = cache.invalidate("encar", List.of(
+                change("200", "added", "{\"mark\":\"bmw\",\"price\":\"25000\",\"year\":\"2018\"}"),
+                change("201", "added", "{\"mark\":\"Audi\",\"price\":\"25000\",\"year\":\"2018\"}")));
+
+        assertEquals(2, dropped);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void offerOutsideRangesDoesNotInvalidate() {
+        OffersCache cache = new OffersCache(client);
+        cache.getOffers("encar", bmw());
+
+        assertEquals(0, cache.invalidate("encar", List.of(
+                change("200", "added", "{\"mark\":\"BMW\",\"price\":\"45000\",\"year\":\"2018\"}"),
+                change("201", "changed", "{\"mark\":\"BMW\",\"price\":\"25000\",\"year\":\"2009\"}"))));
+        // Fields the filters cannot be checked against are assumed to match
+        assertEquals(1, cache.invalidate("encar", List.of(change("202", "added", "{\"mark\":\"BMW\"}"))));
+    }
+}
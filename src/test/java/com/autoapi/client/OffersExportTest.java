@@ -0,0 +1,176 @@
+package com.autoapi.client;
+
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.OffersParams;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffersExportTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int OFFERS = 57;
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private AutoApiClient client;
+    private final Random random = new Random(7);
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failingPage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/api/v2/encar/offers", this::handleOffers);
+        server.start();
+        client = new AutoApiClient("key", "http://localhost:" + server.getAddress().getPort(), "v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handleOffers(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        int page = 1;
+        for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+            if (pair.startsWith("page=")) {
+                page = Integer.parseInt(pair.substring(5));
+            }
+        }
+        // Later pages answer first more often than not, so ordering is actually exercised
+        try {
+            TimeUnit.MILLISECONDS.sleep(random.nextInt(20));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (page == failingPage) {
+            respond(exchange, 500, "{\"message\":\"boom\"}");
+            return;
+        }
+        int from = (page - 1) * PAGE_SIZE;
+        StringBuilder items = new StringBuilder();
+        for (int i = from; i < Math.min(from + PAGE_SIZE, OFFERS); i++) {
+            if (items.length() > 0) items.append(',');
+            items.append("{\"id\":").append(i).append(",\"inner_id\":\"").append(i).append("\",\"data\":{")
+                    .append("\"mark\":\"Kia\",\"model\":\"K5, \\\"GT\\\"\",\"year\":").append(2000 + i % 25)
+                    .append(",\"price\":\"").append(1000 + i).append("\",\"images\":[\"a.jpg\"]}}");
+        }
+        boolean onePage = exchange.getRequestURI().getRawQuery().contains("brand=one-page");
+        int nextPage = from + PAGE_SIZE < OFFERS && !onePage ? page + 1 : 0;
+        respond(exchange, 200, "{\"result\":[" + items + "],\"meta\":{\"page\":" + page
+                + ",\"next_page\":" + nextPage + ",\"limit\":" + PAGE_SIZE + "}}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @Test
+    void ndjsonKeepsPageOrder() throws IOException {
+        Path file = dir.resolve("offers.ndjson");
+
+        long count = new OffersExport(client, "encar").parallelism(3).export(new OffersParams(), file);
+
+        assertEquals(OFFERS, count);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(OFFERS, lines.size());
+        for (int i = 0; i < OFFERS; i++) {
+            JsonObject offer = JsonParser.parseString(lines.get(i)).getAsJsonObject();
+            assertEquals(String.valueOf(i), offer.get("inner_id").getAsString());
+            assertEquals("Kia", offer.getAsJsonObject("data").get("mark").getAsString());
+        }
+        assertFalse(Files.exists(dir.resolve("offers.ndjson.part")));
+    }
+
+    @Test
+    void csvProjectsAndQuotesColumns() throws IOException {
+        Path file = dir.resolve("offers.csv");
+
+        new OffersExport(client, "encar")
+                .format(OffersExport.Format.CSV)
+                .columns("inner_id", "model", "price", "images", "missing")
+                .export(new OffersParams(), file);
+
+        String csv = Files.readString(file);
+        String[] rows = csv.split("\r\n");
+        assertEquals(OFFERS + 1, rows.length);
+        assertEquals("inner_id,model,price,images,missing", rows[0]);
+        assertEquals("3,\"K5, \"\"GT\"\"\",1003,\"[\"\"a.jpg\"\"]\",", rows[4]);
+    }
+
+    @Test
+    void gzipOutputDecompressesToSameLines() throws IOException {
+        Path file = dir.resolve("offers.ndjson.gz");
+
+        new OffersExport(client, "encar").gzip(true).export(new OffersParams(), file);
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(OFFERS, text.split("\n").length);
+        }
+    }
+
+    @Test
+    void stopsFetchingAfterLastPage() {
+        new OffersExport(client, "encar").parallelism(2).export(new OffersParams(), dir.resolve("offers.ndjson"));
+
+        // 6 pages, plus at most one speculative fetch past the end
+        assertTrue(requests.get() <= 7, "requests: " + requests.get());
+    }
+
+    @Test
+    void singlePageQueryMakesOneRequest() throws IOException {
+        Path file = dir.resolve("offers.ndjson");
+
+        long count = new OffersExport(client, "encar").parallelism(4)
+                .export(new OffersParams().brand("one-page"), file);
+
+        assertEquals(PAGE_SIZE, count);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void failureDeletesPartialFile() throws IOException {
+        failingPage = 4;
+        Path file = dir.resolve("offers.ndjson");
+        Files.writeString(file, "previous export");
+
+        ApiException ex = assertThrows(ApiException.class,
+                () -> new OffersExport(client, "encar").export(new OffersParams(), file));
+
+        assertEquals(500, ex.getStatusCode());
+        assertEquals("previous export", Files.readString(file));
+        assertFalse(Files.exists(dir.resolve("offers.ndjson.part")));
+    }
+}
@@ -0,0 +1,192 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.OffersParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffersScannerTest {
+
+    private static final int PAGE_SIZE = 10;
+    /** Stands for an offer without the value; no range filter matches it. */
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private HttpServer server;
+    private AutoApiClient client;
+    private final List<int[]> inventory = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 400; i++) {
+            // {inner_id, price, year, mileage}; a few duplicated prices force deeper splits
+            inventory.add(new int[]{i, i < 30 ? 5000 : random.nextInt(100_000), 2000 + random.nextInt(25), random.nextInt(300_000)});
+        }
+
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/api/v2/mobilede/offers", this::handleOffers);
+        server.start();
+        client = new AutoApiClient("key", "http://localhost:" + server.getAddress().getPort(), "v2");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handleOffers(HttpExchange exchange) throws IOException {
+        Map<String, String> q = new HashMap<>();
+        for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] kv = pair.split("=", 2);
+            q.put(kv[0], URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
+        }
+        List<int[]> matches = new ArrayList<>();
+        for (int[] offer : inventory) {
+            if (in(offer[1], q, "price") && in(offer[2], q, "year") && in(offer[3], q, "mileage")) {
+                matches.add(offer);
+            }
+        }
+        int page = Integer.parseInt(q.get("page"));
+        int from = (page - 1) * PAGE_SIZE;
+        StringBuilder items = new StringBuilder();
+        for (int i = from; i < Math.min(from + PAGE_SIZE, matches.size()); i++) {
+            if (items.length() > 0) items.append(',');
+            items.append("{\"id\":").append(i).append(",\"inner_id\":\"").append(matches.get(i)[0]).append("\",\"data\":{}}");
+        }
+        int nextPage = from + PAGE_SIZE < matches.size() ? page + 1 : 0;
+        byte[] bytes = ("{\"result\":[" + items + "],\"meta\":{\"page\":" + page + ",\"next_page\":" + nextPage
+                + ",\"limit\":" + PAGE_SIZE + "}}").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static boolean in(int value, Map<String, String> q, String name) {
+        String from = q.get(name + "_from");
+        String to = q.get(name + "_to");
+        if (value == NO_VALUE) {
+            return from == null && to == null;
+        }
+        return (from == null || value >= Integer.parseInt(from)) && (to == null || value <= Integer.parseInt(to));
+    }
+
+    @Test
+    void scan_returnsEveryOfferOnce() {
+        Set<String> ids = new HashSet<>();
+        List<String> all = new ArrayList<>();
+
+        long count = new OffersScanner(client, "mobilede").workers(4).maxPagesPerPartition(3)
+                .scan(new OffersParams().brand("BMW"), item -> {
+                    ids.add(item.getInnerId());
+                    all.add(item.getInnerId());
+                });
+
+        assertEquals(400, count);
+        assertEquals(400, ids.size());
+        assertEquals(400, all.size());
+    }
+
+    @Test
+    void sharedSeenSet_skipsOffersFromEarlierScans() {
+        SeenSet seen = SeenSet.exact(1000);
+        OffersScanner scanner = new OffersScanner(client, "mobilede").maxPagesPerPartition(3).seenSet(seen);
+
+        assertEquals(400, scanner.scan(new OffersParams().brand("BMW"), item -> { }));
+        assertEquals(0, scanner.scan(new OffersParams().brand("BMW"), item -> { }));
+        assertEquals(400, seen.size());
+    }
+
+    @Test
+    void partition_keepsPartitionsSmallAndDisjoint() {
+        List<OffersParams> partitions = new OffersScanner(client, "mobilede").maxPagesPerPartition(3)
+                .partition(new OffersParams().priceFrom(0).priceTo(99_999));
+
+        assertTrue(partitions.size() > 1);
+        int total = 0;
+        for (OffersParams p : partitions) {
+            int matches = 0;
+            for (int[] offer : inventory) {
+                if (offer[1] >= p.getPriceFrom() && offer[1] <= p.getPriceTo()
+                        && within(offer[2], p.getYearFrom(), p.getYearTo())
+                        && within(offer[3], p.getMileageFrom(), p.getMileageTo())) {
+                    matches++;
+                }
+            }
+            assertTrue(matches <= 3 * PAGE_SIZE, "partition too large: " + p.toQueryParams());
+            total += matches;
+        }
+        assertEquals(400, total);
+    }
+
+    private static boolean within(int value, Integer from, Integer to) {
+        return (from == null || value >= from) && (to == null || value <= to);
+    }
+
+    @Test
+    void smallQuery_isNotSplit() {
+        List<OffersParams> partitions = new OffersScanner(client, "mobilede").maxPagesPerPartition(100)
+                .partition(new OffersParams());
+
+        assertEquals(1, partitions.size());
+        assertNull(partitions.get(0).getPriceFrom());
+    }
+
+    @Test
+    void remainderPass_returnsOffersOutsideTheSplitRanges() {
+        // No usable price: dropped by any price_from/price_to filter the split adds
+        for (int i = 400; i < 405; i++) {
+            inventory.add(new int[]{i, NO_VALUE, 2010, 50_000});
+        }
+        OffersScanner scanner = new OffersScanner(client, "mobilede").maxPagesPerPartition(3);
+
+        assertEquals(400, scanner.scan(new OffersParams().brand("BMW"), item -> { }));
+        assertEquals(405, scanner.remainderPass(true).scan(new OffersParams().brand("BMW"), item -> { }));
+    }
+
+    @Test
+    void scan_coversOffersBeyondTheAssumedRanges() {
+        inventory.add(new int[]{400, 250_000_000, 2010, 50_000});
+        inventory.add(new int[]{401, 20_000, 1885, 50_000});
+        inventory.add(new int[]{402, 20_000, 2010, 5_000_000});
+        inventory.add(new int[]{403, -1, 2010, 50_000});
+
+        assertEquals(404, new OffersScanner(client, "mobilede").maxPagesPerPartition(3)
+                .scan(new OffersParams().brand("BMW"), item -> { }));
+        // Tighter assumed ranges give better split points and still leave nothing out
+        assertEquals(404, new OffersScanner(client, "mobilede").maxPagesPerPartition(3)
+                .priceRange(0, 100_000).yearRange(2000, 2024).mileageRange(0, 300_000)
+                .scan(new OffersParams().brand("BMW"), item -> { }));
+    }
+
+    @Test
+    void partition_splitsDimensionsInTurn() {
+        List<OffersParams> partitions = new OffersScanner(client, "mobilede").maxPagesPerPartition(3)
+                .partition(new OffersParams());
+
+        // Three levels deep at least, so every dimension got a turn
+        assertTrue(partitions.stream().anyMatch(p -> p.getPriceFrom() != null));
+        assertTrue(partitions.stream().anyMatch(p -> p.getYearFrom() != null));
+        assertTrue(partitions.stream().anyMatch(p -> p.getMileageFrom() != null));
+    }
+}
@@ -0,0 +1,64 @@
+package com.autoapi.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagePrefetcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void handsOverPagesInOrder() {
+        List<Integer> handled = new ArrayList<>();
+
+        new PagePrefetcher<Integer>(executor, 4, page -> {
+            Thread.sleep(page % 2 == 0 ? 1 : 20);
+            return page;
+        }).forEach(page -> {
+            handled.add(page);
+            return page < 10 ? page + 1 : 0;
+        });
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), handled);
+    }
+
+    @Test
+    void singlePage_makesNoSpeculativeCalls() {
+        Set<Integer> fetched = ConcurrentHashMap.newKeySet();
+
+        new PagePrefetcher<Integer>(executor, 4, page -> {
+            fetched.add(page);
+            return page;
+        }).forEach(page -> 0);
+
+        assertEquals(Set.of(1), fetched);
+    }
+
+    @Test
+    void stopping_cancelsPagesInFlight() throws InterruptedException {
+        new PagePrefetcher<Integer>(executor, 4, page -> {
+            if (page > 2) {
+                Thread.sleep(10_000);
+            }
+            return page;
+        }).forEach(page -> page == 1 ? 2 : 0);
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,121 @@
+package com.autoapi.client;
+
+import com.autoapi.client.model.ChangeItem;
+import com.google.gson.JsonObject;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryTest {
+
+    private static ChangeItem change(int id, String innerId, String type, String createdAt,
+                                     String mark, String model, Object price, Object km) {
+        JsonObject data = new JsonObject();
+        data.addProperty("mark", mark);
+        data.addProperty("model", model);
+        if (price instanceof Number) {
+            data.addProperty("price", (Number) price);
+        } else {
+            data.addProperty("price", (String) price);
+        }
+        if (km != null) {
+            data.addProperty("km_age", km.toString());
+        }
+        return new ChangeItem(id, innerId, type, createdAt, data);
+    }
+
+    private static Instant t(String value) {
+        return Instant.parse(value);
+    }
+
+    @Test
+    void history_keepsOnlyMovements() {
+        PriceHistory history = new PriceHistory();
+        history.accept(change(1, "a", "added", "2025-01-01T10:00:00Z", "BMW", "X5", 30000, 50000));
+        history.accept(change(2, "a", "changed", "2025-01-02T10:00:00Z", "BMW", "X5", 30000, 50000));
+        history.accept(change(3, "a", "changed", "2025-01-03 10:00:00", "BMW", "X5", "28500", 50100));
+        history.accept(change(4, "a", "changed", "2025-01-05", "BMW", "X5", 27000, null));
+        history.accept(change(5, "a", "removed", "2025-01-06", "BMW", "X5", 1, null));
+
+        List<PriceHistory.Point> points = history.history("a", null, null);
+        assertEquals(3, points.size());
+        assertEquals(t("2025-01-01T10:00:00Z"), points.get(0).getTime());
+        assertEquals(30000, points.get(0).getPrice());
+        assertEquals(28500, points.get(1).getPrice());
+        assertEquals(50100, points.get(1).getKmAge());
+        assertEquals(-1, points.get(2).getKmAge());
+        assertEquals(27000, history.latestPrice("a"));
+        assertEquals(3, history.pointCount());
+    }
+
+    @Test
+    void history_rangeQuery() {
+        PriceHistory history = new PriceHistory();
+        for (int day = 1; day <= 30; day++) {
+            history.record("a", "Kia", "K5", t("2025-01-01T00:00:00Z").getEpochSecond() + day * 86400L, 20000 - day * 10, 1000 + day);
+        }
+
+        List<PriceHistory.Point> week = history.history("a", t("2025-01-11T00:00:00Z"), t("2025-01-18T00:00:00Z"));
+        assertEquals(7, week.size());
+        assertEquals(20000 - 100, week.get(0).getPrice());
+        assertEquals(20000 - 160, week.get(6).getPrice());
+        assertTrue(history.history("missing", null, null).isEmpty());
+    }
+
+    @Test
+    void record_dropsOutOfOrderPoints() {
+        PriceHistory history = new PriceHistory();
+        history.record("a", "Kia", "K5", 2000, 100, 1);
+        history.record("a", null, null, 1000, 90, 1);
+
+        assertEquals(1, history.history("a", null, null).size());
+    }
+
+    @Test
+    void aggregate_lastPricePerOfferPerBucket() {
+        PriceHistory history = new PriceHistory();
+        long day = 86400;
+        long start = t("2025-01-01T00:00:00Z").getEpochSecond();
+        history.record("a", "BMW", "X5", start + 100, 30000, 1);
+        history.record("a", "BMW", "X5", start + 200, 29000, 1);
+        history.record("a", "BMW", "X5", start + day + 10, 28000, 1);
+        history.record("b", "BMW", "X5", start + 300, 40000, 1);
+        history.record("c", "BMW", "X3", start + 400, 20000, 1);
+        history.record("d", "Kia", "K5", start + 500, 10000, 1);
+
+        List<PriceHistory.Bucket> x5 = history.aggregate("BMW", "X5", t("2025-01-01T00:00:00Z"),
+                t("2025-01-03T00:00:00Z"), Duration.ofDays(1));
+        assertEquals(2, x5.size());
+        assertEquals(2, x5.get(0).getOffers());
+        assertEquals(29000, x5.get(0).getMin());
+        assertEquals(40000, x5.get(0).getMax());
+        assertEquals(34500, x5.get(0).getMean(), 0.001);
+        assertEquals(t("2025-01-02T00:00:00Z"), x5.get(1).getStart());
+        assertEquals(1, x5.get(1).getOffers());
+        assertEquals(28000, x5.get(1).getMax());
+
+        List<PriceHistory.Bucket> bmw = history.aggregate("BMW", null, t("2025-01-01T00:00:00Z"),
+                t("2025-01-02T00:00:00Z"), Duration.ofDays(1));
+        assertEquals(1, bmw.size());
+        assertEquals(3, bmw.get(0).getOffers());
+        assertEquals(20000, bmw.get(0).getMin());
+    }
+
+    @Test
+    void modelChange_movesOfferToNewGroup() {
+        PriceHistory history = new PriceHistory();
+        history.record("a", "BMW", "X5", 100, 30000, 1);
+        history.record("a", "BMW", "X6", 200, 31000, 1);
+
+        Instant from = Instant.ofEpochSecond(0);
+        Instant to = Instant.ofEpochSecond(1000);
+        assertTrue(history.aggregate("BMW", "X5", from, to, Duration.ofSeconds(1000)).isEmpty());
+        assertEquals(31000, history.aggregate("BMW", "X6", from, to, Duration.ofSeconds(1000)).get(0).getMax());
+        assertEquals(2, history.history("a", null, null).size());
+    }
+}
@@ -0,0 +1,58 @@
+package com.autoapi.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeenSetTest {
+
+    private static void assertExact(SeenSet seen) {
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(seen.add("encar", "id" + i));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertFalse(seen.add("encar", "id" + i));
+            assertTrue(seen.contains("encar", "id" + i));
+            assertFalse(seen.contains("encar", "other" + i));
+        }
+        // The same inner_id on another source is a different offer
+        assertTrue(seen.add("che168", "id1"));
+        assertEquals(100_001, seen.size());
+    }
+
+    @Test
+    void exact_growsPastExpected() {
+        assertExact(SeenSet.exact(16));
+    }
+
+    @Test
+    void exactOffHeap_growsPastExpected() {
+        assertExact(SeenSet.exactOffHeap(16));
+    }
+
+    @Test
+    void bloom_staysUnderFalsePositiveRate() {
+        SeenSet seen = SeenSet.bloom(10_000, 0.01);
+        for (int i = 0; i < 200_000; i++) {
+            seen.add("mobilede", "id" + i);
+        }
+        for (int i = 0; i < 200_000; i++) {
+            assertTrue(seen.contains("mobilede", "id" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 200_000; i++) {
+            if (seen.contains("mobilede", "unseen" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        // Adds that hit a false positive are reported as already seen
+        assertTrue(seen.size() > 198_000, "size: " + seen.size());
+    }
+
+    @Test
+    void bloom_rejectsInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> SeenSet.bloom(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> SeenSet.bloom(100, 1));
+    }
+}
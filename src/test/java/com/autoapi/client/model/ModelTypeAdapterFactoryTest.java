@@ -0,0 +1,137 @@
+package com.autoapi.client.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ModelTypeAdapterFactoryTest {
+
+    private static final String OFFERS_JSON = "{\"result\":[{\"id\":1,\"inner_id\":\"123\",\"change_type\":\"added\","
+            + "\"created_at\":\"2025-01-15\",\"unknown\":{\"x\":[1,2]},\"data\":{\"mark\":\"BMW\",\"price\":25000}}],"
+            + "\"meta\":{\"page\":1,\"next_page\":2,\"limit\":20}}";
+
+    private static final String OFFER_DATA_JSON = "{\"inner_id\":\"1\",\"url\":\"https://a\",\"mark\":\"BMW\","
+            + "\"model\":\"X5\",\"year\":2020,\"price\":\"25000\",\"km_age\":null,\"is_dealer\":true,"
+            + "\"images\":[\"a.jpg\",\"b.jpg\"],\"vin\":\"skipped\"}";
+
+    private final Gson reflective = new Gson();
+    private final Gson streaming = new GsonBuilder()
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    @Test
+    void offersResponse_matchesReflectiveParsing() {
+        OffersResponse expected = reflective.fromJson(OFFERS_JSON, OffersResponse.class);
+        OffersResponse actual = streaming.fromJson(OFFERS_JSON, OffersResponse.class);
+
+        assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+        assertEquals(2, actual.getMeta().getNextPage());
+        assertEquals("BMW", actual.getResult().get(0).getData().getAsJsonObject().get("mark").getAsString());
+    }
+
+    @Test
+    void changesResponse_parsesAllFields() {
+        String json = "{\"result\":[{\"id\":7,\"inner_id\":\"100\",\"change_type\":\"removed\",\"data\":{}}],"
+                + "\"meta\":{\"cur_change_id\":7,\"next_change_id\":8,\"limit\":50}}";
+
+        ChangesResponse resp = streaming.fromJson(json, ChangesResponse.class);
+
+        assertEquals(7, resp.getResult().get(0).getId());
+        assertEquals("removed", resp.getResult().get(0).getChangeType());
+        assertEquals(8, resp.getMeta().getNextChangeId());
+        assertEquals(50, resp.getMeta().getLimit());
+    }
+
+    @Test
+    void offerData_matchesReflectiveParsing() {
+        OfferData expected = reflective.fromJson(OFFER_DATA_JSON, OfferData.class);
+        OfferData actual = streaming.fromJson(OFFER_DATA_JSON, OfferData.class);
+
+        assertEquals(reflective.toJson(expected), streaming.toJson(actual));
+        assertEquals("2020", actual.getYear());
+        assertTrue(actual.isDealer());
+        assertNull(actual.getKmAge());
+    }
+
+    @Test
+    void write_roundTrips() {
+        OffersResponse resp = streaming.fromJson(OFFERS_JSON, OffersResponse.class);
+
+        String json = streaming.toJson(resp);
+
+        assertEquals(JsonParser.parseString(reflective.toJson(resp)), JsonParser.parseString(json));
+        assertEquals("123", streaming.fromJson(json, OffersResponse.class).getResult().get(0).getInnerId());
+    }
+
+    @Test
+    void nullValues_areHandled() {
+        assertNull(streaming.fromJson("null", OffersResponse.class));
+        OffersResponse resp = streaming.fromJson("{\"result\":null,\"meta\":null}", OffersResponse.class);
+        assertNull(resp.getResult());
+        assertNull(resp.getMeta());
+    }
+
+    @Test
+    void stringPool_internsCategoricalValues() {
+        StringPool pool = new StringPool();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapterFactory(pool)).create();
+        String json = "{\"result\":[{\"id\":1,\"inner_id\":\"1\",\"change_type\":\"changed\",\"data\":{\"mark\":\"Kia\"}},"
+                + "{\"id\":2,\"inner_id\":\"2\",\"change_type\":\"changed\",\"data\":{\"mark\":\"Kia\"}}],"
+                + "\"meta\":{\"cur_change_id\":1,\"next_change_id\":3,\"limit\":50}}";
+
+        ChangesResponse resp = gson.fromJson(json, ChangesResponse.class);
+        OfferData a = gson.fromJson("{\"mark\":\"Kia\",\"url\":\"https://a\"}", OfferData.class);
+        OfferData b = gson.fromJson("{\"mark\":\"Kia\",\"url\":\"https://a\"}", OfferData.class);
+
+        assertSame(resp.getResult().get(0).getChangeType(), resp.getResult().get(1).getChangeType());
+        assertSame(resp.getResult().get(0).getData().getAsJsonObject().get("mark").getAsString(),
+                resp.getResult().get(1).getData().getAsJsonObject().get("mark").getAsString());
+        assertSame(a.getMark(), b.getMark());
+        assertNotSame(a.getUrl(), b.getUrl());
+    }
+
+    @Test
+    void stringPool_addsNoAllocationsWhileReadingData() {
+        StringPool pool = new StringPool();
+        Gson pooled = new GsonBuilder().registerTypeAdapterFactory(new ModelTypeAdapterFactory(pool)).create();
+        StringBuilder json = new StringBuilder("{\"result\":[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"inner_id\":\"").append(i)
+                    .append("\",\"data\":{\"mark\":\"BMW\",\"model\":\"X5\",\"generation\":\"G05\","
+                            + "\"year\":\"2020\",\"color\":\"black\",\"engine_type\":\"diesel\","
+                            + "\"transmission_type\":\"automatic\",\"body_type\":\"suv\","
+                            + "\"seller_type\":\"dealer\",\"displacement\":\"3.0\",\"price\":25000}}");
+        }
+        String page = json.append("],\"meta\":{\"page\":1,\"next_page\":0,\"limit\":2000}}").toString();
+
+        long plain = minAllocatedBytes(streaming, page);
+        long interned = minAllocatedBytes(pooled, page);
+
+        // Replacing the ten categorical values after the fact would cost 20,000 extra primitives (320 KB and up).
+        assertTrue(interned <= plain + 64 * 1024, "pooled " + interned + " bytes vs plain " + plain);
+    }
+
+    private static long minAllocatedBytes(Gson gson, String json) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long id = Thread.currentThread().getId();
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            OffersResponse resp = gson.fromJson(json, OffersResponse.class);
+            long after = threads.getThreadAllocatedBytes(id);
+            assertEquals(2000, resp.getResult().size());
+            min = Math.min(min, after - before);
+        }
+        return min;
+    }
+}
@@ -0,0 +1,40 @@
+package com.autoapi.client.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+
+    @Test
+    void intern_returnsCanonicalInstance() {
+        StringPool pool = new StringPool();
+        String first = pool.intern(new String("BMW"));
+
+        assertSame(first, pool.intern(new String("BMW")));
+        assertNull(pool.intern(null));
+    }
+
+    @Test
+    void seed_internsFilterValues() {
+        StringPool pool = new StringPool();
+        pool.seed(Map.of("brands", List.of("BMW", "Audi"), "body_types", List.of("sedan")));
+
+        assertEquals(5, pool.size());
+        assertEquals("Audi", pool.intern(new String("Audi")));
+    }
+
+    @Test
+    void fullPool_returnsValueUnpooled() {
+        StringPool pool = new StringPool(1);
+        String first = pool.intern(new String("a"));
+        String other = new String("b");
+
+        assertSame(first, pool.intern(new String("a")));
+        assertSame(other, pool.intern(other));
+        assertEquals(1, pool.size());
+    }
+}
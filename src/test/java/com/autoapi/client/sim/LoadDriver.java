@@ -0,0 +1,264 @@
+package com.autoapi.client.sim;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator. Requests are scheduled at a fixed rate and spread over a pool of
+ * workers; latency is measured from each request's scheduled start, so a stalled client shows
+ * up as queueing delay instead of silently lowering the offered rate.
+ *
+ * <p>Allocation per request is read from the JVM's per-thread allocation counters for all
+ * threads, so it includes the HTTP client's own threads and the simulated server when both
+ * run in the same JVM.
+ */
+public final class LoadDriver {
+
+    /**
+     * A request to issue; called with the request's sequence number.
+     */
+    public interface Request {
+        void run(long n) throws Exception;
+    }
+
+    /**
+     * Result of a run.
+     */
+    public static final class Report {
+
+        private final long requests;
+        private final long errors;
+        private final Map<String, Long> errorsByType;
+        private final double seconds;
+        private final Histogram latency;
+        private final long allocatedBytes;
+
+        Report(long requests, long errors, Map<String, Long> errorsByType, double seconds,
+               Histogram latency, long allocatedBytes) {
+            this.requests = requests;
+            this.errors = errors;
+            this.errorsByType = errorsByType;
+            this.seconds = seconds;
+            this.latency = latency;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /** Error count by exception class name. */
+        public Map<String, Long> getErrorsByType() {
+            return errorsByType;
+        }
+
+        /** Completed requests per second, successful or not. */
+        public double getThroughput() {
+            return requests / seconds;
+        }
+
+        /** Latency at a percentile (0-100), in milliseconds. */
+        public double getLatencyMillis(double percentile) {
+            return latency.percentile(percentile) / 1e6;
+        }
+
+        /** Bytes allocated by all threads per request, or -1 if the JVM does not report it. */
+        public long getAllocatedBytesPerRequest() {
+            return allocatedBytes < 0 || requests == 0 ? -1 : allocatedBytes / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %.1fs (%.0f/s), %d errors %s%n"
+                            + "latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n"
+                            + "allocated per request: %d bytes",
+                    requests, seconds, getThroughput(), errors, errorsByType,
+                    getLatencyMillis(50), getLatencyMillis(90), getLatencyMillis(99), getLatencyMillis(99.9),
+                    getLatencyMillis(100), getAllocatedBytesPerRequest());
+        }
+    }
+
+    private final double ratePerSecond;
+    private final Duration duration;
+    private int workers = 256;
+    private Duration warmup = Duration.ZERO;
+
+    /**
+     * @param ratePerSecond requests started per second
+     * @param duration      measured run length
+     */
+    public LoadDriver(double ratePerSecond, Duration duration) {
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+    }
+
+    /** Threads issuing requests; bounds concurrency (default: 256). */
+    public LoadDriver workers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /** Unmeasured run before the measured one, for JIT and connection pools (default: none). */
+    public LoadDriver warmup(Duration warmup) {
+        this.warmup = warmup;
+        return this;
+    }
+
+    /**
+     * Runs the warmup, then the measured run.
+     */
+    public Report run(Request request) throws InterruptedException {
+        if (!warmup.isZero()) {
+            runFor(warmup, request);
+        }
+        return runFor(duration, request);
+    }
+
+    private Report runFor(Duration length, Request request) throws InterruptedException {
+        long total = (long) (ratePerSecond * length.toNanos() / 1e9);
+        double intervalNanos = 1e9 / ratePerSecond;
+        Histogram latency = new Histogram();
+        AtomicLong errors = new AtomicLong();
+        Map<String, AtomicLong> errorsByType = new ConcurrentHashMap<>();
+        AtomicLong next = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "load-driver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        List<Future<?>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            tasks.add(executor.submit(() -> {
+                long n;
+                while ((n = next.getAndIncrement()) < total) {
+                    long scheduled = start + (long) (n * intervalNanos);
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    try {
+                        request.run(n);
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                        errorsByType.computeIfAbsent(e.getClass().getSimpleName(), k -> new AtomicLong()).incrementAndGet();
+                    }
+                    latency.record(System.nanoTime() - scheduled);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocatedAfter = allocatedBytes();
+        executor.shutdownNow();
+
+        Map<String, Long> byType = new TreeMap<>();
+        errorsByType.forEach((type, count) -> byType.put(type, count.get()));
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Report(total, errors.get(), byType, seconds, latency, allocated);
+    }
+
+    /** Total bytes allocated by live threads, or -1 if unsupported. */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Log-linear latency histogram: 2^SUB_BITS buckets per power of two, about 1.5% resolution.
+     */
+    static final class Histogram {
+
+        private static final int SUB_BITS = 6;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long value = Math.max(1, nanos);
+            counts.incrementAndGet(index(value));
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            if (percentile >= 100) {
+                return max.get();
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return max.get();
+        }
+
+        private static int index(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < SUB_BITS) {
+                return (int) value;
+            }
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int index) {
+            int block = index / SUB_BUCKETS;
+            int sub = index % SUB_BUCKETS;
+            if (block == 0) {
+                return sub;
+            }
+            int exponent = block + SUB_BITS - 1;
+            return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+        }
+    }
+}
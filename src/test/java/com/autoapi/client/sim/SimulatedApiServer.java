@@ -0,0 +1,438 @@
+package com.autoapi.client.sim;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local stand-in for auto-api.com serving filters, offers, offer, change_id, changes and
+ * offer/info from generated data, with latency and faults from a {@link SimulationProfile}.
+ *
+ * <p>Data is a pure function of the seed, and so is the sequence of latency and fault draws,
+ * so runs with the same seed see the same mix. Which request gets which draw depends on
+ * arrival order when requests are concurrent.
+ */
+public class SimulatedApiServer implements AutoCloseable {
+
+    /** Outcome counters. */
+    public enum Outcome {
+        OK, RATE_LIMITED, SERVER_ERROR, SLOW_BODY, DROPPED, CLIENT_ERROR
+    }
+
+    private static final String[] MARKS = {
+            "Hyundai", "Kia", "Genesis", "BMW", "Mercedes-Benz", "Audi", "Toyota", "Volkswagen"};
+    private static final String[][] MODELS = {
+            {"Sonata", "Avante", "Tucson", "Santa Fe", "Grandeur"},
+            {"K5", "Sorento", "Sportage", "Carnival", "Morning"},
+            {"G80", "G90", "GV70", "GV80"},
+            {"3 Series", "5 Series", "X3", "X5"},
+            {"C-Class", "E-Class", "GLC", "S-Class"},
+            {"A4", "A6", "Q5", "Q7"},
+            {"Camry", "Corolla", "RAV4", "Prius"},
+            {"Golf", "Passat", "Tiguan", "Polo"},
+    };
+    private static final LocalDate FEED_START = LocalDate.of(2025, 1, 1);
+    private static final int PAGE_SIZE = 20;
+    private static final int FIRST_INNER_ID = 10_000_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final SimulationProfile profile;
+    private final long seed;
+    private final int offersPerSource;
+    private final int changesPerDay;
+    private final int totalChanges;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+    private final Map<String, Inventory> inventories = new ConcurrentHashMap<>();
+
+    /**
+     * Starts a server with 10,000 offers per source and 30 days of changes at 50,000 per day.
+     *
+     * @param profile latency and faults
+     * @param seed    seed for data, latency and faults
+     */
+    public SimulatedApiServer(SimulationProfile profile, long seed) throws IOException {
+        this(profile, seed, 10_000, 50_000, 30);
+    }
+
+    /**
+     * Starts a server on an ephemeral local port.
+     *
+     * @param profile         latency and faults
+     * @param seed            seed for data, latency and faults
+     * @param offersPerSource size of each source's inventory
+     * @param changesPerDay   change_ids per day of the feed
+     * @param days            length of the feed; its head is at the end of the last day
+     */
+    public SimulatedApiServer(SimulationProfile profile, long seed, int offersPerSource, int changesPerDay, int days)
+            throws IOException {
+        this.profile = profile;
+        this.seed = seed;
+        this.offersPerSource = offersPerSource;
+        this.changesPerDay = changesPerDay;
+        this.totalChanges = changesPerDay * days;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "simulated-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Number of requests received. */
+    public long getRequestCount() {
+        return sequence.get();
+    }
+
+    /** Number of requests that ended with the given outcome. */
+    public long getCount(Outcome outcome) {
+        return outcomes.get(outcome.ordinal());
+    }
+
+    /** change_id at the head of the feed; getChanges from here returns nothing. */
+    public int getHeadChangeId() {
+        return totalChanges + 1;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            long n = sequence.getAndIncrement();
+            SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + n);
+            long latency = profile.latencyNanos(gaussian(random));
+            if (latency > 0) {
+                LockSupport.parkNanos(latency);
+            }
+
+            if (profile.inBurst(System.nanoTime() - startNanos) || random.nextDouble() < profile.rateLimitRate()) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(profile.retryAfterSeconds()));
+                send(exchange, 429, "{\"message\":\"Too many requests\"}", Outcome.RATE_LIMITED);
+                return;
+            }
+            if (random.nextDouble() < profile.serverErrorRate()) {
+                send(exchange, 503, "{\"message\":\"Service unavailable\"}", Outcome.SERVER_ERROR);
+                return;
+            }
+
+            String body;
+            try {
+                body = route(exchange);
+            } catch (IllegalArgumentException | SecurityException | DateTimeParseException e) {
+                send(exchange, e instanceof SecurityException ? 401 : 400,
+                        "{\"message\":\"" + e.getMessage() + "\"}", Outcome.CLIENT_ERROR);
+                return;
+            }
+            if (body == null) {
+                send(exchange, 404, "{\"message\":\"Not found\"}", Outcome.CLIENT_ERROR);
+                return;
+            }
+
+            double fault = random.nextDouble();
+            if (fault < profile.dropRate()) {
+                sendPartial(exchange, body, -1, Outcome.DROPPED);
+            } else if (fault < profile.dropRate() + profile.slowBodyRate()) {
+                sendPartial(exchange, body, profile.slowBodyDelay().toNanos(), Outcome.SLOW_BODY);
+            } else {
+                send(exchange, 200, body, Outcome.OK);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String route(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        if (path.equals("/api/v1/offer/info") && exchange.getRequestMethod().equals("POST")) {
+            requireKey(exchange.getRequestHeaders().getFirst("x-api-key"));
+            String payload;
+            try (InputStream in = exchange.getRequestBody()) {
+                payload = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            return offerInfo(payload);
+        }
+
+        // /api/{version}/{source}/{endpoint}
+        String[] parts = path.split("/");
+        if (parts.length != 5) {
+            return null;
+        }
+        requireKey(query.get("api_key"));
+        Inventory inventory = inventories.computeIfAbsent(parts[3], Inventory::new);
+        switch (parts[4]) {
+            case "filters":
+                return filters();
+            case "offers":
+                return inventory.offers(query);
+            case "offer":
+                return inventory.offer(query.get("inner_id"));
+            case "change_id":
+                return changeId(query.get("date"));
+            case "changes":
+                return inventory.changes(intParam(query, "change_id", 1));
+            default:
+                return null;
+        }
+    }
+
+    private static void requireKey(String key) {
+        if (key == null || key.isEmpty()) {
+            throw new SecurityException("Missing API key");
+        }
+    }
+
+    private String filters() {
+        StringBuilder out = new StringBuilder("{\"brands\":[");
+        for (int i = 0; i < MARKS.length; i++) {
+            if (i > 0) out.append(',');
+            out.append('"').append(MARKS[i]).append('"');
+        }
+        return out.append("]}").toString();
+    }
+
+    private String changeId(String date) {
+        if (date == null) {
+            throw new IllegalArgumentException("date is required");
+        }
+        long days = ChronoUnit.DAYS.between(FEED_START, LocalDate.parse(date));
+        long id = Math.max(1, Math.min(getHeadChangeId(), days * changesPerDay + 1));
+        return "{\"change_id\":" + id + "}";
+    }
+
+    private String offerInfo(String payload) {
+        int slash = payload.lastIndexOf('/');
+        int quote = payload.indexOf('"', slash);
+        if (slash < 0 || quote < 0) {
+            throw new IllegalArgumentException("url is required");
+        }
+        // Generated URLs look like https://{source}.example/offer/{inner_id}
+        int scheme = payload.indexOf("://");
+        int dot = payload.indexOf('.', scheme);
+        String source = scheme >= 0 && dot > scheme ? payload.substring(scheme + 3, dot) : "encar";
+        Inventory inventory = inventories.computeIfAbsent(source, Inventory::new);
+        int index = index(payload.substring(slash + 1, quote));
+        return index >= 0 ? inventory.data(index, 0) : null;
+    }
+
+    private int index(String innerId) {
+        try {
+            int index = Integer.parseInt(innerId) - FIRST_INNER_ID;
+            return index >= 0 && index < offersPerSource ? index : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** Generated offers of one source, kept as primitive columns. */
+    private final class Inventory {
+
+        final String source;
+        final byte[] mark;
+        final byte[] model;
+        final short[] year;
+        final int[] km;
+        final int[] price;
+
+        Inventory(String source) {
+            this.source = source;
+            mark = new byte[offersPerSource];
+            model = new byte[offersPerSource];
+            year = new short[offersPerSource];
+            km = new int[offersPerSource];
+            price = new int[offersPerSource];
+            SplittableRandom random = new SplittableRandom(seed ^ source.hashCode());
+            for (int i = 0; i < offersPerSource; i++) {
+                mark[i] = (byte) random.nextInt(MARKS.length);
+                model[i] = (byte) random.nextInt(MODELS[mark[i]].length);
+                year[i] = (short) random.nextInt(2008, 2026);
+                km[i] = random.nextInt(0, 250_000);
+                price[i] = random.nextInt(3_000, 90_000);
+            }
+        }
+
+        String offers(Map<String, String> query) {
+            int page = intParam(query, "page", 1);
+            String brand = query.get("brand");
+            int skip = (page - 1) * PAGE_SIZE;
+            StringBuilder items = new StringBuilder(PAGE_SIZE * 700);
+            int matched = 0;
+            boolean more = false;
+            for (int i = 0; i < offersPerSource; i++) {
+                if ((brand != null && !MARKS[mark[i]].equalsIgnoreCase(brand))
+                        || !in(price[i], query, "price") || !in(year[i], query, "year") || !in(km[i], query, "mileage")) {
+                    continue;
+                }
+                if (matched >= skip + PAGE_SIZE) {
+                    more = true;
+                    break;
+                }
+                if (matched++ >= skip) {
+                    item(items, i + 1, i, "added", 0);
+                }
+            }
+            return "{\"result\":[" + items + "],\"meta\":{\"page\":" + page + ",\"next_page\":"
+                    + (more ? page + 1 : 0) + ",\"limit\":" + PAGE_SIZE + "}}";
+        }
+
+        String offer(String innerId) {
+            int index = innerId != null ? index(innerId) : -1;
+            StringBuilder items = new StringBuilder(700);
+            if (index >= 0) {
+                item(items, index + 1, index, "added", 0);
+            }
+            return "{\"result\":[" + items + "],\"meta\":{\"page\":1,\"next_page\":0,\"limit\":1}}";
+        }
+
+        String changes(int from) {
+            StringBuilder items = new StringBuilder(PAGE_SIZE * 700);
+            int to = Math.max(from, Math.min(from + PAGE_SIZE, getHeadChangeId()));
+            for (int id = Math.max(1, from); id < to; id++) {
+                SplittableRandom random = new SplittableRandom(seed * 31 + id);
+                int index = random.nextInt(offersPerSource);
+                int kind = id % 10;
+                String type = kind == 0 ? "removed" : kind == 1 ? "added" : "changed";
+                item(items, id, index, type, kind == 0 ? 0 : -random.nextInt(0, 2_000));
+            }
+            return "{\"result\":[" + items + "],\"meta\":{\"cur_change_id\":" + from
+                    + ",\"next_change_id\":" + to + ",\"limit\":" + PAGE_SIZE + "}}";
+        }
+
+        private void item(StringBuilder out, int id, int index, String type, int priceDelta) {
+            if (out.length() > 0) out.append(',');
+            out.append("{\"id\":").append(id)
+                    .append(",\"inner_id\":\"").append(FIRST_INNER_ID + index)
+                    .append("\",\"change_type\":\"").append(type)
+                    .append("\",\"created_at\":\"").append(createdAt(id))
+                    .append("\",\"data\":").append(data(index, priceDelta)).append('}');
+        }
+
+        String data(int index, int priceDelta) {
+            int innerId = FIRST_INNER_ID + index;
+            StringBuilder out = new StringBuilder(600);
+            out.append("{\"inner_id\":\"").append(innerId)
+                    .append("\",\"url\":\"https://").append(source).append(".example/offer/").append(innerId)
+                    .append("\",\"mark\":\"").append(MARKS[mark[index]])
+                    .append("\",\"model\":\"").append(MODELS[mark[index]][model[index]])
+                    .append("\",\"year\":\"").append(year[index])
+                    .append("\",\"color\":\"white\",\"price\":\"").append(Math.max(500, price[index] + priceDelta))
+                    .append("\",\"km_age\":\"").append(km[index])
+                    .append("\",\"engine_type\":\"gasoline\",\"transmission_type\":\"automatic\"")
+                    .append(",\"body_type\":\"sedan\",\"address\":\"Seoul\",\"seller_type\":\"dealer\"")
+                    .append(",\"is_dealer\":true,\"displacement\":\"1998\",\"images\":[");
+            for (int i = 0; i < 6; i++) {
+                if (i > 0) out.append(',');
+                out.append("\"https://img.").append(source).append(".example/").append(innerId).append('_').append(i).append(".jpg\"");
+            }
+            return out.append("]}").toString();
+        }
+    }
+
+    private String createdAt(int changeId) {
+        long seconds = (long) (changeId - 1) * 86_400 / changesPerDay;
+        return LocalDateTime.of(FEED_START.getYear(), 1, 1, 0, 0).plusSeconds(seconds).toString();
+    }
+
+    private void send(HttpExchange exchange, int status, String body, Outcome outcome) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        outcomes.incrementAndGet(outcome.ordinal());
+    }
+
+    /**
+     * Sends the first half of the body, then either the rest after a delay or, if delayNanos
+     * is negative, fails so the connection is closed short of the declared length.
+     */
+    private void sendPartial(HttpExchange exchange, String body, long delayNanos, Outcome outcome) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes, 0, bytes.length / 2);
+        out.flush();
+        outcomes.incrementAndGet(outcome.ordinal());
+        if (delayNanos < 0) {
+            // The server closes the connection when a handler fails, cutting the body short
+            throw new IOException("Simulated connection drop");
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        out.write(bytes, bytes.length / 2, bytes.length - bytes.length / 2);
+        out.close();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            String[] kv = pair.split("=", 2);
+            query.put(kv[0], kv.length > 1 ? URLDecoder.decode(kv[1], StandardCharsets.UTF_8) : "");
+        }
+        return query;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static boolean in(int value, Map<String, String> query, String name) {
+        String from = query.get(name + "_from");
+        String to = query.get(name + "_to");
+        return (from == null || value >= Integer.parseInt(from)) && (to == null || value <= Integer.parseInt(to));
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 11
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
@@ -0,0 +1,101 @@
+package com.autoapi.client.sim;
+
+import com.autoapi.client.AutoApiClient;
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.ChangesResponse;
+import com.autoapi.client.model.OffersParams;
+import com.autoapi.client.model.OffersResponse;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatedApiServerTest {
+
+    @Test
+    void servesEveryEndpoint() throws Exception {
+        try (SimulatedApiServer server = new SimulatedApiServer(SimulationProfile.fast(), 42, 1_000, 1_000, 10)) {
+            AutoApiClient client = new AutoApiClient("key", server.getBaseUrl(), "v2");
+
+            assertTrue(client.getFilters("encar").containsKey("brands"));
+
+            OffersResponse page = client.getOffers("encar", new OffersParams().page(1).brand("Kia"));
+            assertEquals(20, page.getResult().size());
+            assertEquals(2, page.getMeta().getNextPage());
+            String innerId = page.getResult().get(0).getInnerId();
+            assertEquals("Kia", page.getResult().get(0).getData().getAsJsonObject().get("mark").getAsString());
+
+            assertEquals(innerId, client.getOffer("encar", innerId).getResult().get(0).getInnerId());
+
+            int changeId = client.getChangeId("encar", "2025-01-03");
+            assertEquals(2_001, changeId);
+            ChangesResponse changes = client.getChanges("encar", changeId);
+            assertEquals(20, changes.getResult().size());
+            assertEquals(changeId + 20, changes.getMeta().getNextChangeId());
+            assertTrue(client.getChanges("encar", server.getHeadChangeId()).getResult().isEmpty());
+
+            Map<String, Object> info = client.getOfferByUrl("https://encar.example/offer/" + innerId);
+            assertEquals(innerId, info.get("inner_id"));
+        }
+    }
+
+    @Test
+    void sameSeed_sameData() throws Exception {
+        String first;
+        String second;
+        try (SimulatedApiServer server = new SimulatedApiServer(SimulationProfile.fast(), 7, 1_000, 1_000, 10)) {
+            first = new AutoApiClient("key", server.getBaseUrl(), "v2").getChanges("mobilede", 500).getResult().get(3).getData().toString();
+        }
+        try (SimulatedApiServer server = new SimulatedApiServer(SimulationProfile.fast(), 7, 1_000, 1_000, 10)) {
+            second = new AutoApiClient("key", server.getBaseUrl(), "v2").getChanges("mobilede", 500).getResult().get(3).getData().toString();
+        }
+        assertEquals(first, second);
+    }
+
+    @Test
+    void faults_surfaceAsClientErrors() throws Exception {
+        SimulationProfile profile = SimulationProfile.fast().rateLimits(0.2).serverErrors(0.2).drops(0.2);
+        try (SimulatedApiServer server = new SimulatedApiServer(profile, 1, 1_000, 1_000, 10)) {
+            AutoApiClient client = new AutoApiClient("key", server.getBaseUrl(), "v2");
+
+            LoadDriver.Report report = new LoadDriver(200, Duration.ofSeconds(1)).workers(8)
+                    .run(n -> client.getOffer("encar", String.valueOf(10_000_000 + n % 1_000)));
+
+            assertEquals(200, report.getRequests());
+            assertTrue(report.getErrors() > 40, report.toString());
+            assertTrue(report.getErrors() < 160, report.toString());
+            assertTrue(server.getCount(SimulatedApiServer.Outcome.RATE_LIMITED) > 0);
+            assertTrue(server.getCount(SimulatedApiServer.Outcome.SERVER_ERROR) > 0);
+            assertTrue(server.getCount(SimulatedApiServer.Outcome.DROPPED) > 0);
+            assertTrue(report.getErrorsByType().keySet().stream().allMatch(type -> type.endsWith("Exception")));
+        }
+    }
+
+    @Test
+    void loadDriver_reportsLatencyOfInjectedProfile() throws Exception {
+        SimulationProfile profile = SimulationProfile.fast().latency(Duration.ofMillis(20), Duration.ofMillis(60));
+        try (SimulatedApiServer server = new SimulatedApiServer(profile, 3, 1_000, 1_000, 10)) {
+            AutoApiClient client = new AutoApiClient("key", server.getBaseUrl(), "v2");
+
+            LoadDriver.Report report = new LoadDriver(200, Duration.ofSeconds(1)).workers(32)
+                    .run(n -> client.getChanges("encar", (int) (n * 20 % 9_000) + 1));
+
+            assertEquals(0, report.getErrors(), report.toString());
+            assertTrue(report.getLatencyMillis(50) >= 15, report.toString());
+            assertTrue(report.getLatencyMillis(99) >= report.getLatencyMillis(50));
+            assertTrue(report.getAllocatedBytesPerRequest() != 0);
+        }
+    }
+
+    @Test
+    void missingApiKey_isRejected() throws Exception {
+        try (SimulatedApiServer server = new SimulatedApiServer(SimulationProfile.fast(), 1, 100, 100, 1)) {
+            AutoApiClient client = new AutoApiClient("", server.getBaseUrl(), "v2");
+            ApiException e = assertThrows(ApiException.class, () -> client.getFilters("encar"));
+            assertEquals(401, e.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.autoapi.client.sim;
+
+import java.time.Duration;
+
+/**
+ * Latency and fault profile of a {@link SimulatedApiServer}.
+ * Latency is log-normal, given by its median and 99th percentile. Faults are drawn
+ * independently per request; 429 bursts are time windows in which every request is rejected.
+ */
+public final class SimulationProfile {
+
+    private Duration latencyMedian = Duration.ZERO;
+    private Duration latencyP99 = Duration.ZERO;
+    private double rateLimitRate;
+    private Duration burstEvery;
+    private Duration burstLength = Duration.ZERO;
+    private int retryAfterSeconds = 1;
+    private double serverErrorRate;
+    private double slowBodyRate;
+    private Duration slowBodyDelay = Duration.ofMillis(200);
+    private double dropRate;
+
+    /** No added latency and no faults. */
+    public static SimulationProfile fast() {
+        return new SimulationProfile();
+    }
+
+    /** Typical production-like latency (median 40 ms, p99 250 ms) and no faults. */
+    public static SimulationProfile realistic() {
+        return new SimulationProfile().latency(Duration.ofMillis(40), Duration.ofMillis(250));
+    }
+
+    /** Realistic latency plus 0.5% 5xx, 0.5% slow bodies, 0.1% dropped connections and a 429 burst every 10 seconds. */
+    public static SimulationProfile degraded() {
+        return realistic()
+                .serverErrors(0.005)
+                .slowBodies(0.005, Duration.ofMillis(500))
+                .drops(0.001)
+                .rateLimitBursts(Duration.ofSeconds(10), Duration.ofMillis(500));
+    }
+
+    /** Log-normal response latency with the given median and 99th percentile. */
+    public SimulationProfile latency(Duration median, Duration p99) {
+        this.latencyMedian = median;
+        this.latencyP99 = p99;
+        return this;
+    }
+
+    /** Fraction of requests answered with 429 and a Retry-After header. */
+    public SimulationProfile rateLimits(double rate) {
+        this.rateLimitRate = rate;
+        return this;
+    }
+
+    /** Answers every request with 429 for {@code length} at the start of each {@code every} period. */
+    public SimulationProfile rateLimitBursts(Duration every, Duration length) {
+        this.burstEvery = every;
+        this.burstLength = length;
+        return this;
+    }
+
+    /** Retry-After value sent with 429 responses (default: 1 second). */
+    public SimulationProfile retryAfter(int seconds) {
+        this.retryAfterSeconds = seconds;
+        return this;
+    }
+
+    /** Fraction of requests answered with 503. */
+    public SimulationProfile serverErrors(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    /** Fraction of responses whose body is sent in two halves, {@code delay} apart. */
+    public SimulationProfile slowBodies(double rate, Duration delay) {
+        this.slowBodyRate = rate;
+        this.slowBodyDelay = delay;
+        return this;
+    }
+
+    /** Fraction of responses cut off halfway through the body. */
+    public SimulationProfile drops(double rate) {
+        this.dropRate = rate;
+        return this;
+    }
+
+    /**
+     * Draws a latency from the profile.
+     *
+     * @param gaussian standard normal sample
+     */
+    long latencyNanos(double gaussian) {
+        long median = latencyMedian.toNanos();
+        if (median == 0) {
+            return 0;
+        }
+        // p99 of a log-normal is median * e^(2.326 * sigma)
+        double sigma = Math.max(0, Math.log((double) latencyP99.toNanos() / median) / 2.326);
+        return (long) (median * Math.exp(sigma * gaussian));
+    }
+
+    boolean inBurst(long elapsedNanos) {
+        return burstEvery != null && elapsedNanos % burstEvery.toNanos() < burstLength.toNanos();
+    }
+
+    double rateLimitRate() {
+        return rateLimitRate;
+    }
+
+    int retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    double serverErrorRate() {
+        return serverErrorRate;
+    }
+
+    double slowBodyRate() {
+        return slowBodyRate;
+    }
+
+    Duration slowBodyDelay() {
+        return slowBodyDelay;
+    }
+
+    double dropRate() {
+        return dropRate;
+    }
+}
@@ -0,0 +1,94 @@
+package com.autoapi.client.sim;
+
+import com.autoapi.client.AutoApiClient;
+import com.autoapi.client.exception.ApiException;
+import com.autoapi.client.model.OffersParams;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load and soak run against the simulated API; excluded from {@code gradle test}.
+ * Run with {@code gradle soak}, optionally with
+ * {@code -Dsoak.rate=5000 -Dsoak.seconds=60 -Dsoak.profile=degraded -Dsoak.seed=1}.
+ */
+@Tag("soak")
+class SoakTest {
+
+    private static final String[] SOURCES = {"encar", "mobilede", "autoscout24"};
+
+    @Test
+    void mixedWorkload() throws Exception {
+        double rate = Double.parseDouble(System.getProperty("soak.rate", "5000"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(System.getProperty("soak.seconds", "30")));
+        String profileName = System.getProperty("soak.profile", "realistic");
+        long seed = Long.parseLong(System.getProperty("soak.seed", "1"));
+
+        SimulationProfile profile;
+        switch (profileName) {
+            case "fast":
+                profile = SimulationProfile.fast();
+                break;
+            case "degraded":
+                profile = SimulationProfile.degraded();
+                break;
+            default:
+                profile = SimulationProfile.realistic();
+        }
+
+        try (SimulatedApiServer server = new SimulatedApiServer(profile, seed)) {
+            AutoApiClient client = AutoApiClient.builder("soak-key")
+                    .baseUrl(server.getBaseUrl())
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+            int head = server.getHeadChangeId();
+
+            LoadDriver.Report report = new LoadDriver(rate, duration)
+                    .workers(512)
+                    .warmup(Duration.ofSeconds(5))
+                    .run(n -> {
+                        String source = SOURCES[(int) (n % SOURCES.length)];
+                        switch ((int) (n % 20)) {
+                            case 0:
+                                client.getChangeId(source, LocalDate.of(2025, 1, 1).plusDays(n % 30).toString());
+                                break;
+                            case 1: case 2: case 3: case 4: case 5:
+                                client.getChanges(source, (int) (n * 20 % head) + 1);
+                                break;
+                            case 6: case 7: case 8: case 9:
+                                client.getOffer(source, String.valueOf(10_000_000 + n % 10_000));
+                                break;
+                            default:
+                                client.getOffers(source, new OffersParams().page((int) (n % 50) + 1));
+                        }
+                    });
+
+            System.out.printf("soak %s at %.0f/s for %s (seed %d)%n%s%n", profileName, rate, duration, seed, report);
+            for (SimulatedApiServer.Outcome outcome : SimulatedApiServer.Outcome.values()) {
+                System.out.printf("  server %s: %d%n", outcome, server.getCount(outcome));
+            }
+
+            // Faults and overload (timeouts) must surface as the client's own exceptions,
+            // never as parse or runtime errors
+            for (String type : report.getErrorsByType().keySet()) {
+                assertTrue(type.endsWith("Exception") && isApiException(type), "unexpected error type " + type);
+            }
+        }
+    }
+
+    private static boolean isApiException(String simpleName) {
+        try {
+            return ApiException.class.isAssignableFrom(
+                    Class.forName(simpleName.equals("ApiException")
+                            ? ApiException.class.getName()
+                            : ApiException.class.getPackageName() + "." + simpleName));
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.autoapi.client.sim;
+
+import com.autoapi.client.AutoApiClient;
+import com.autoapi.client.model.OffersResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cold-start benchmark: times a fresh process making a single {@code getOffer} call against a
+ * local {@link SimulatedApiServer}, end to end (process start to exit) and inside the process
+ * (entering main to having the response).
+ *
+ * <p>Settings are system properties: {@code startup.runs} (default 10), {@code startup.jvmArgs}
+ * for the child JVM (e.g. {@code -XX:TieredStopAtLevel=1 -XX:SharedArchiveFile=app.jsa}) and
+ * {@code startup.command} to time another executable instead, such as a native image of
+ * {@code StartupBenchmark}; it is called with the base URL, source and inner_id as arguments.
+ */
+public final class StartupBenchmark {
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3) {
+            call(args[0], args[1], args[2]);
+            return;
+        }
+        int runs = Integer.getInteger("startup.runs", 10);
+        try (SimulatedApiServer server = new SimulatedApiServer(SimulationProfile.fast(), 1, 100, 100, 1)) {
+            List<String> command = command(server.getBaseUrl(), "encar", "10000000");
+
+            // One unmeasured run warms the OS file cache
+            run(command);
+            List<Double> wall = new ArrayList<>();
+            List<Double> inProcess = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                long start = System.nanoTime();
+                double reported = run(command);
+                wall.add((System.nanoTime() - start) / 1e6);
+                inProcess.add(reported);
+            }
+            System.out.printf("%d runs of %s%n", runs, command.get(0));
+            System.out.println("process wall ms:  " + summary(wall));
+            System.out.println("first call ms:    " + summary(inProcess));
+        }
+    }
+
+    /**
+     * The measured child: one request with a new client, printing the time spent in main.
+     */
+    private static void call(String baseUrl, String source, String innerId) {
+        long start = System.nanoTime();
+        OffersResponse response = new AutoApiClient("key", baseUrl, "v2").getOffer(source, innerId);
+        if (response.getResult() == null || response.getResult().isEmpty()) {
+            throw new IllegalStateException("offer not found: " + innerId);
+        }
+        System.out.println((System.nanoTime() - start) / 1e6);
+    }
+
+    private static List<String> command(String baseUrl, String source, String innerId) {
+        List<String> command = new ArrayList<>();
+        String executable = System.getProperty("startup.command");
+        if (executable != null && !executable.isBlank()) {
+            command.addAll(Arrays.asList(executable.trim().split("\\s+")));
+        } else {
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            String jvmArgs = System.getProperty("startup.jvmArgs", "");
+            if (!jvmArgs.isBlank()) {
+                command.addAll(Arrays.asList(jvmArgs.trim().split("\\s+")));
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(StartupBenchmark.class.getName());
+        }
+        command.add(baseUrl);
+        command.add(source);
+        command.add(innerId);
+        return command;
+    }
+
+    /** Runs the child and returns the time it reported. */
+    private static double run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("child failed: " + output);
+        }
+        // JAVA_TOOL_OPTIONS and similar make the JVM print before main; the timing is the last line
+        String[] lines = output.split("\\R");
+        return Double.parseDouble(lines[lines.length - 1]);
+    }
+
+    private static String summary(List<Double> millis) {
+        List<Double> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        return String.format("min %.1f  p50 %.1f  p90 %.1f  max %.1f",
+                sorted.get(0), sorted.get(sorted.size() / 2),
+                sorted.get((int) Math.ceil(sorted.size() * 0.9) - 1), sorted.get(sorted.size() - 1));
+    }
+}